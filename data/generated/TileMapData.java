@@ -94,6 +94,12 @@ public class TileMapData implements IXMLCodec, IData {
      */
     @XmlAttribute(name = "y2")
     private int _y2;
+
+    /**
+     * The page of the sheet holding this tile map entity
+     */
+    @XmlAttribute(name = "page")
+    private int _page;
     
     /**
      * Creates a new instance of this class type
@@ -136,6 +142,15 @@ public class TileMapData implements IXMLCodec, IData {
         _y2 = y2;
     }
 
+    /**
+     * Sets the page of the sheet holding the tile map data
+     * 
+     * @param page The page, the first page is the main sheet
+     */
+    public void setPage(int page) {
+        _page = page;
+    }
+
     public int getTopLeftX() {
         return _x1;
     }
@@ -152,6 +167,10 @@ public class TileMapData implements IXMLCodec, IData {
         return _y2;
     }
     
+    @Override public int getPage() {
+        return _page;
+    }
+
     @Override public UUID getIdentifier() {
         return _uuid;
     }
@@ -43,6 +43,7 @@ public enum ResourceKeys {
     ClearAll,
     ClearImage,
     Columns,
+    Compress,
     Data,
     Dimensions,
     DeleteTileMapQuestion, 
@@ -56,6 +57,7 @@ public enum ResourceKeys {
     ExportOverwriteMessage,
     File,
     FriendlyName,
+    GenerateLookupClasses,
     Github,
     Height,
     Help,
@@ -70,6 +72,7 @@ public enum ResourceKeys {
     NewProject,
     NewTilemap,
     OK,
+    OpenTileMaps,
     Perspective,
     ProjectName,
     ProjectSettings,
@@ -81,6 +84,7 @@ public enum ResourceKeys {
     Save,
     SaveQuestion,
     ScaleDimensions,
+    SelectTileMaps,
     SetupError,
     ShowTileMap,
     TileLayers,
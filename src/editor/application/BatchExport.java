@@ -0,0 +1,280 @@
+package editor.application;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import framework.api.IModel;
+import framework.communication.external.builder.Director;
+import framework.communication.external.filesystem.AbstractFileSystem;
+import framework.core.graphics.PngEncoder;
+import framework.core.graphics.PngEncoder.Filter;
+import framework.core.system.EngineProperties;
+import framework.core.system.EngineProperties.Property;
+import framework.utils.io.Paths;
+import framework.utils.logging.Tracelog;
+
+import editor.persistance.builder.ExportDataBuilder;
+import editor.persistance.builder.ExportImagesBuilder;
+import editor.persistance.builder.LoadTileMapBuilder;
+
+/**
+ * Exports projects from the command line without any user interface, so that projects can be exported
+ * by an asset pipeline on a machine without a display.  Every project is exported into its own folder
+ * within the output directory, and the projects are exported concurrently.
+ *
+ * Usage: BatchExport [--data] [--images] [--threads count] [--truecolor] [--quantize] [--compression level] [--filter filter] [--no-lookup-classes] outputDirectory projectFile...
+ *
+ * Note: The data and the images are both exported unless only one of them is specified.  The images
+ *       of a project are exported into the images folder of the project.  Images are stored with a palette when all
+ *       their colors fit within one unless true color is specified, and their colors are reduced to fit within
+ *       one when quantize is specified.  When no lookup classes is specified, the lookup enums are not compiled into the
+ *       exported jar and games look up the data through the exported lookup index, by setting the DATA_PATH_LOOKUP
+ *       engine property and using LookupIndex.instance()
+ *
+ * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
+ */
+public final class BatchExport {
+
+    /**
+     * The usage of the command line
+     */
+    private static final String USAGE = "Usage: BatchExport [--data] [--images] [--threads count] [--truecolor] [--quantize] [--compression level] [--filter filter] [--no-lookup-classes] outputDirectory projectFile...";
+
+    /**
+     * The name of the folder where the images of a project are exported
+     */
+    private static final String IMAGES_FOLDER = "images";
+
+    /**
+     * The directory where the projects are exported
+     */
+    private final File _outputDirectory;
+
+    /**
+     * Indicates if the data of the projects is exported
+     */
+    private final boolean _isExportingData;
+
+    /**
+     * Indicates if the images of the projects are exported
+     */
+    private final boolean _isExportingImages;
+
+    /**
+     * The number of projects that are exported at the same time
+     */
+    private final int _threads;
+
+    /**
+     * The encoder of the exported images
+     */
+    private final PngEncoder _pngEncoder;
+
+    /**
+     * Indicates if the lookup enums are compiled into the exported jar of the projects
+     */
+    private boolean _isGeneratingLookupClasses = true;
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param outputDirectory The directory where the projects are exported
+     * @param isExportingData If the data of the projects is exported
+     * @param isExportingImages If the images of the projects are exported
+     * @param threads The number of projects that are exported at the same time
+     * @param pngEncoder The encoder of the exported images
+     */
+    public BatchExport(File outputDirectory, boolean isExportingData, boolean isExportingImages, int threads, PngEncoder pngEncoder) {
+        _outputDirectory = outputDirectory;
+        _isExportingData = isExportingData;
+        _isExportingImages = isExportingImages;
+        _threads = Math.max(1, threads);
+        _pngEncoder = pngEncoder;
+    }
+
+    /**
+     * Sets if the lookup enums are compiled into the exported jar of the projects
+     *
+     * @param isGeneratingLookupClasses If the lookup enums should be generated
+     */
+    public void setGeneratingLookupClasses(boolean isGeneratingLookupClasses) {
+        _isGeneratingLookupClasses = isGeneratingLookupClasses;
+    }
+
+    /**
+     * The main method entry-point for exporting from the command line
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+
+        // There is no display, this must be set before anything from AWT is used
+        System.setProperty("java.awt.headless", "true");
+
+        boolean isExportingData = false;
+        boolean isExportingImages = false;
+        boolean isGeneratingLookupClasses = true;
+        int threads = Runtime.getRuntime().availableProcessors();
+        PngEncoder pngEncoder = new PngEncoder();
+        List<String> paths = new ArrayList<>();
+        try {
+            for(int i = 0; i < args.length; ++i) {
+                switch(args[i]) {
+                case "--data":
+                    isExportingData = true;
+                    break;
+                case "--images":
+                    isExportingImages = true;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--truecolor":
+                    pngEncoder.setIndexed(false);
+                    break;
+                case "--quantize":
+                    pngEncoder.setQuantized(true);
+                    break;
+                case "--compression":
+                    pngEncoder.setCompressionLevel(Integer.parseInt(args[++i]));
+                    break;
+                case "--filter":
+                    pngEncoder.setFilter(Filter.valueOf(args[++i].toUpperCase()));
+                    break;
+                case "--no-lookup-classes":
+                    isGeneratingLookupClasses = false;
+                    break;
+                default:
+                    paths.add(args[i]);
+                    break;
+                }
+            }
+        }
+        catch(Exception exception) {
+            paths.clear();
+        }
+
+        if(paths.size() < 2) {
+            System.out.println(USAGE);
+            System.exit(2);
+        }
+
+        EngineProperties.instance().setProperty(Property.LOCALIZATION_PATH_CVS, "/resources/resources.csv");
+        EngineProperties.instance().setProperty(Property.ENGINE_OUTPUT, Boolean.toString(false));
+        EngineProperties.instance().setProperty(Property.SUPPRESS_SIGNAL_REGISTRATION_OUTPUT, Boolean.toString(true));
+        EngineProperties.instance().setProperty(Property.DISABLE_TRANSLATIONS_PLACEHOLDER, Boolean.toString(true));
+
+        List<File> projects = new ArrayList<>();
+        for(String path : paths.subList(1, paths.size())) {
+            projects.add(new File(path));
+        }
+
+        // When neither is specified, everything is exported
+        boolean isExportingAll = !isExportingData && !isExportingImages;
+        BatchExport batchExport = new BatchExport(new File(paths.get(0)), isExportingAll || isExportingData, isExportingAll || isExportingImages, threads, pngEncoder);
+        batchExport.setGeneratingLookupClasses(isGeneratingLookupClasses);
+
+        System.exit(batchExport.export(projects) == projects.size() ? 0 : 1);
+    }
+
+    /**
+     * Exports the specified projects, the time taken by every project is output once it is exported
+     *
+     * @param projects The project files
+     *
+     * @return The number of projects that were exported successfully
+     */
+    public int export(List<File> projects) {
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(_threads, Math.max(1, projects.size())));
+        List<Future<Boolean>> results = new ArrayList<>();
+        for(File project : projects) {
+            results.add(executor.submit(() -> export(project)));
+        }
+        executor.shutdown();
+
+        int exported = 0;
+        for(Future<Boolean> result : results) {
+            try {
+                if(result.get()) {
+                    ++exported;
+                }
+            }
+            catch(Exception exception) {
+                Tracelog.log(Level.SEVERE, true, exception);
+            }
+        }
+
+        System.out.println(String.format("Info: %d of %d projects exported in %d ms", exported, projects.size(), getElapsed(start)));
+        return exported;
+    }
+
+    /**
+     * Exports the specified project into its own folder within the output directory
+     *
+     * @param project The project file
+     *
+     * @return TRUE if the project was exported, FALSE otherwise
+     */
+    private boolean export(File project) {
+        long start = System.nanoTime();
+        if(!project.isFile()) {
+            System.out.println("Error: Cannot find the project " + project);
+            return false;
+        }
+
+        // Read every model of the project, the models are held by this export only
+        List<IModel> models = new ArrayList<>();
+        AbstractFileSystem fileSystem = LoadTileMapBuilder.getFileSystem(project);
+        if(!fileSystem.deserialize(model -> models.add((IModel) model))) {
+            System.out.println("Error: Cannot read the project " + project);
+            return false;
+        }
+        long loadTime = getElapsed(start);
+
+        File exportFolder = new File(_outputDirectory, Paths.filenameNoExtension(project));
+
+        long dataStart = System.nanoTime();
+        ExportDataBuilder exportDataBuilder = new ExportDataBuilder(exportFolder, models);
+        exportDataBuilder.setPngEncoder(_pngEncoder);
+        exportDataBuilder.setGeneratingLookupClasses(_isGeneratingLookupClasses);
+        boolean isExported = !_isExportingData || new Director(exportDataBuilder).construct();
+        long dataTime = getElapsed(dataStart);
+
+        long imagesStart = System.nanoTime();
+        ExportImagesBuilder exportImagesBuilder = new ExportImagesBuilder(new File(exportFolder, IMAGES_FOLDER), models);
+        exportImagesBuilder.setPngEncoder(_pngEncoder);
+        isExported &= !_isExportingImages || new Director(exportImagesBuilder).construct();
+        long imagesTime = getElapsed(imagesStart);
+
+        System.out.println(String.format(
+            "%s: %s %s in %d ms (load %d ms, data %d ms, images %d ms)",
+            isExported ? "Info" : "Error",
+            project,
+            isExported ? "exported" : "failed to export",
+            getElapsed(start),
+            loadTime,
+            dataTime,
+            imagesTime
+        ));
+
+        return isExported;
+    }
+
+    /**
+     * Gets the number of milliseconds that have elapsed since the specified time
+     *
+     * @param start The time in nanoseconds
+     *
+     * @return The elapsed milliseconds
+     */
+    private static long getElapsed(long start) {
+        return (System.nanoTime() - start) / 1000000;
+    }
+}
\ No newline at end of file
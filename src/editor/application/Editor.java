@@ -27,6 +27,7 @@ import editor.menu.ShowTileMapMenu;
 import editor.menu.TileLayersMenuItem;
 import editor.menu.TileMapMenuItem;
 import editor.menu.TileMapSettingsMenuItem;
+import editor.persistance.AutosaveService;
 import resources.ResourceKeys;
 
 /**
@@ -148,5 +149,8 @@ public final class Editor extends Application {
         populateEditMenu();
         populateViewMenu();
         populateHelpMenu();
+
+        // Start saving the project in the background
+        AutosaveService.instance().start();
     }    
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import framework.api.IModel;
 import framework.communication.internal.signal.arguments.EventArgs;
 import framework.core.mvc.model.BaseModel;
 
@@ -64,6 +65,15 @@ public final class ProjectModel extends BaseModel {
         doneUpdating();
     }
 
+    @Override public void copyData(IModel model) {
+        super.copyData(model);
+
+        if(model instanceof ProjectModel) {
+            ProjectModel project = (ProjectModel) model;
+            setProjectName(project._projectName);
+        }
+    }
+
     @Override public String toString() {
         return _projectName;
     }
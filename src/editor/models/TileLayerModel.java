@@ -41,6 +41,7 @@ public final class TileLayerModel extends BaseModel {
      * @param layerName The name to set for this layer
      */
     public void setLayerName(String layerName) {
+        incrementRevision();
         this._name = layerName;
     }
 
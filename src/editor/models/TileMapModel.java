@@ -109,7 +109,7 @@ public final class TileMapModel extends BaseModel {
     public void setSelected(boolean selected) {
         _selected = selected;
         setOperation(EVENT_TILEMAP_SELECTION_CHANGED);
-        doneUpdating();
+        doneUpdatingState();
     }
 
     /**
@@ -132,6 +132,7 @@ public final class TileMapModel extends BaseModel {
      * @param height the height to set
      */
     public void setHeight(int height) {
+        incrementRevision();
         this._height = height;
     }
 
@@ -147,6 +148,7 @@ public final class TileMapModel extends BaseModel {
      * @param name the name to set
      */
     public void setName(String name) {
+        incrementRevision();
         this._name = name;
     }
 
@@ -161,6 +163,7 @@ public final class TileMapModel extends BaseModel {
      * @param columns the columns to set
      */
     public void setColumns(int columns) {
+        incrementRevision();
         this._columns = columns;
     }
 
@@ -175,6 +178,7 @@ public final class TileMapModel extends BaseModel {
      * @param rows the rows to set
      */
     public void setRows(int rows) {
+        incrementRevision();
         this._rows = rows;
     }
 
@@ -185,10 +189,26 @@ public final class TileMapModel extends BaseModel {
         return _tiles;
     }
 
+    /**
+     * Gets the revision of this tile map along with the revisions of all of its tiles, the revision
+     * changes whenever the tile map or any of its tiles change
+     *
+     * @return The revision of the contents of this tile map
+     */
+    public long getContentRevision() {
+        long revision = getRevision() + _tiles.size();
+        for(TileModel tileModel : _tiles) {
+            revision += tileModel.getRevision();
+        }
+
+        return revision;
+    }
+
     /**
      * @param tiles the tiles to set
      */
     public void setTiles(List<TileModel> tiles) {
+        incrementRevision();
         this._tiles = tiles;
     }
 
@@ -205,6 +225,7 @@ public final class TileMapModel extends BaseModel {
      * @param width the width to set
      */
     public void setWidth(int width) {
+        incrementRevision();
         this._width = width;
     }
 
@@ -216,6 +237,7 @@ public final class TileMapModel extends BaseModel {
      * 
      */
     public void setCoordinate(int x, int y) {
+        incrementRevision();
         _x = x;
         _y = y;
     }
@@ -3,9 +3,14 @@ package editor.models;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -16,6 +21,8 @@ import framework.api.IModel;
 import framework.communication.internal.signal.ISignalListener;
 import framework.communication.internal.signal.ISignalReceiver;
 import framework.communication.internal.signal.arguments.ModelEventArgs;
+import framework.core.graphics.ImageStore;
+import framework.core.graphics.ImageStore.StoredImage;
 import framework.core.mvc.model.BaseModel;
 
 
@@ -70,10 +77,17 @@ public final class TileModel extends BaseModel {
     private List<UUID> _layers = new ArrayList();
 
     /**
-     * The image of this tile
+     * The image of this tile, identical images are shared between tiles
+     */
+    private transient StoredImage _storedImage;
+
+    /**
+     * The image of this tile encoded as a PNG, this is what is persisted
+     *
+     * Note: This is only set while this model is being marshalled or unmarshalled
      */
     @XmlAttribute(name="image")
-    private Image _image;
+    private byte[] _imageData;
 
     /**
      * The selection state of this tile
@@ -119,7 +133,7 @@ public final class TileModel extends BaseModel {
     public void setSelected(boolean selectionState) {
         _selectionState = selectionState;
         setOperation(EVENT_TILE_SELECTION_CHANGED);
-        doneUpdating();
+        doneUpdatingState();
     }
 
     /**
@@ -139,7 +153,7 @@ public final class TileModel extends BaseModel {
     public void setImage(BufferedImage image) {
 
         if(image == null) {
-            _image = image;
+            setStoredImage(null);
         }
         else {
             // Scaling an image turns the image into a sun.awt type image, we need to turn it
@@ -151,20 +165,112 @@ public final class TileModel extends BaseModel {
             BufferedImage buff = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
             buff.getGraphics().drawImage(scaledImage, 0, 0, null);
 
-            _image = buff;
+            // If another tile already has the same image then that image is used instead
+            setStoredImage(ImageStore.instance().acquire(buff));
         }
 
         setOperation(EVENT_IMAGE_CHANGED);
         doneUpdating();
     }
 
+    /**
+     * Sets the image of this model from its PNG encoded bytes, the image is only decoded the first time it is needed
+     * 
+     * @param imageData The PNG encoded bytes of the image
+     */
+    public void setImageData(byte[] imageData) {
+        setStoredImage(imageData == null ? null : ImageStore.instance().acquire(imageData));
+        setOperation(EVENT_IMAGE_CHANGED);
+        doneUpdating();
+    }
+
+    /**
+     * Sets the stored image of this model, releasing the previous one
+     *
+     * @param storedImage The stored image, this should already have been acquired
+     */
+    private void setStoredImage(StoredImage storedImage) {
+        ImageStore.instance().release(_storedImage);
+        _storedImage = storedImage;
+    }
+
+    /**
+     * Gets the stored image associated to the tile model, tiles with identical images have the same stored image
+     * 
+     * @return The stored image of the tile model, or null if there is no image
+     */
+    public StoredImage getStoredImage() {
+        return _storedImage;
+    }
+
     /**
      * Gets the image associated to the tile model
      * 
+     * Note: The image is shared with all the tiles that have an identical image
+     * 
      * @return The image of the tile model
      */
     public Image getImage() {
-        return _image;
+        return _storedImage == null ? null : _storedImage.getImage();
+    }
+
+    /**
+     * Gets the image associated to the tile model encoded as a PNG
+     * 
+     * Note: The encoded image is kept until the image changes, so this can be called ahead of
+     * time, from any thread, so that persisting this model does not need to encode the image
+     * 
+     * @return The PNG encoded bytes of the image, or null if there is no image
+     */
+    public byte[] getImageData() {
+        return _storedImage == null ? null : _storedImage.getEncodedImage();
+    }
+
+    /**
+     * Encodes the images of the specified tiles in parallel, so that the tiles can be persisted without
+     * encoding their images one at a time.  Tiles that share the same image only encode it once
+     * 
+     * @param tileModels The tiles to encode
+     */
+    public static void encodeImages(Collection<TileModel> tileModels) {
+        tileModels.stream()
+            .map(TileModel::getStoredImage)
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList())
+            .parallelStream()
+            .forEach(StoredImage::getEncodedImage);
+    }
+
+    /**
+     * Called by the marshaller before this model is marshalled
+     * 
+     * @param marshaller The marshaller
+     */
+    private void beforeMarshal(Marshaller marshaller) {
+        _imageData = getImageData();
+    }
+
+    /**
+     * Called by the marshaller after this model has been marshalled
+     * 
+     * @param marshaller The marshaller
+     */
+    private void afterMarshal(Marshaller marshaller) {
+        _imageData = null;
+    }
+
+    /**
+     * Called by the unmarshaller after this model has been unmarshalled
+     * 
+     * @param unmarshaller The unmarshaller
+     * @param parent The parent of this model
+     */
+    private void afterUnmarshal(Unmarshaller unmarshaller, Object parent) {
+        if(_imageData != null) {
+            setStoredImage(ImageStore.instance().acquire(_imageData));
+            _imageData = null;
+        }
     }
 
     /**
@@ -178,6 +284,7 @@ public final class TileModel extends BaseModel {
      * @param width the width to set
      */
     public void setWidth(int width) {
+        incrementRevision();
         this._width = width;
     }
 
@@ -192,6 +299,7 @@ public final class TileModel extends BaseModel {
      * @param height the height to set
      */
     public void setHeight(int height) {
+        incrementRevision();
         this._height = height;
     }
 
@@ -199,6 +307,7 @@ public final class TileModel extends BaseModel {
      * @param name the name to set
      */
     public void setName(String name) {
+        incrementRevision();
         this._name = name;
     }
 
@@ -213,6 +322,7 @@ public final class TileModel extends BaseModel {
      * @param friendlyName the friendlyName to set
      */
     public void setFriendlyName(String friendlyName) {
+        incrementRevision();
         this._friendlyName = friendlyName;
     }
 
@@ -229,6 +339,7 @@ public final class TileModel extends BaseModel {
      * @param layerUUID The list of layer UUIDs
      */
     public void updateLayers(List<UUID> layerUUID) {
+        incrementRevision();
         _layers.clear();
         _layers.addAll(new ArrayList(layerUUID));
     }
@@ -259,7 +370,11 @@ public final class TileModel extends BaseModel {
             setWidth(tileModel.getWidth());
             setHeight(tileModel.getHeight());
             updateLayers(tileModel._layers);
-            setImage((BufferedImage)tileModel._image);
+
+            // The image has already been scaled when it was first set, so it is shared as-is
+            setStoredImage(ImageStore.instance().acquire(tileModel._storedImage));
+            setOperation(EVENT_IMAGE_CHANGED);
+            doneUpdating();
         }
     }
 
@@ -269,7 +384,9 @@ public final class TileModel extends BaseModel {
             @Override public void signalReceived(ModelEventArgs event) {
                 if(event.getSource() instanceof TileLayerModel) {
                     TileLayerModel tileLayerModel = (TileLayerModel) event.getSource();
-                    _layers.remove(tileLayerModel.getUUID());
+                    if(_layers.remove(tileLayerModel.getUUID())) {
+                        incrementRevision();
+                    }
                 }
             }
         });
@@ -0,0 +1,319 @@
+package editor.persistance;
+
+import java.io.File;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import framework.core.factories.AbstractFactory;
+import framework.core.factories.ModelFactory;
+import framework.utils.logging.Tracelog;
+
+import editor.models.ProjectModel;
+import editor.models.TileLayerModel;
+import editor.models.TileMapModel;
+import editor.models.TileModel;
+import editor.persistance.filesystem.BinaryFileSystem;
+import editor.persistance.filesystem.ChunkedFileSystem;
+
+/**
+ * Periodically saves the current project in the background.  A snapshot of the models is taken on the
+ * event dispatch thread and is then written by a worker thread, so that editing never waits on a save.
+ *
+ * A save happens once the project has been idle for a while, once enough edits have accumulated, or once
+ * edits have been pending for too long, whichever comes first.
+ *
+ * Note: Snapshots of tile maps that have not changed since the previous snapshot are reused, and tile images
+ *       are shared through the image store, so taking a snapshot does not copy any pixels.  The tile maps of a
+ *       partially opened chunked project that were never opened are read from its file by the worker
+ *
+ * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
+ */
+public final class AutosaveService {
+
+    /**
+     * The interval in milliseconds at which the models are verified for changes
+     */
+    private static final int POLL_INTERVAL = 5000;
+
+    /**
+     * The time in milliseconds without edits after which pending edits are saved
+     */
+    private static final long IDLE_DELAY = 15000;
+
+    /**
+     * The number of edits after which pending edits are saved, even if the project is not idle
+     */
+    private static final long EDIT_THRESHOLD = 500;
+
+    /**
+     * The time in milliseconds after which pending edits are saved, even if the project is not idle
+     */
+    private static final long MAXIMUM_DELAY = 120000;
+
+    /**
+     * The directory where the autosaves are written
+     */
+    private static final File DIRECTORY = new File(System.getProperty("user.home") + File.separator + ".mead" + File.separator + "autosave");
+
+    /**
+     * The singleton instance of this class type
+     */
+    private static AutosaveService _instance;
+
+    /**
+     * The timer used to verify the models for changes on the event dispatch thread
+     */
+    private final Timer _timer = new Timer(POLL_INTERVAL, event -> poll());
+
+    /**
+     * The worker that writes the snapshots
+     */
+    private final ExecutorService _executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The snapshots of the tile maps that were taken during the previous save
+     */
+    private Map<TileMapModel, Snapshot> _snapshots = new IdentityHashMap<>();
+
+    /**
+     * The revision of the project that was last saved
+     */
+    private long _savedRevision;
+
+    /**
+     * The revision of the project when it was last verified
+     */
+    private long _lastRevision;
+
+    /**
+     * The time of the last edit
+     */
+    private long _lastEditTime;
+
+    /**
+     * The time of the first edit that has not been saved
+     */
+    private long _firstEditTime;
+
+    /**
+     * Indicates if a snapshot is currently being written
+     */
+    private boolean _isSaving;
+
+    /**
+     * The snapshot of a single tile map
+     */
+    private static final class Snapshot {
+
+        /**
+         * The revision of the tile map when the snapshot was taken
+         */
+        private final long _revision;
+
+        /**
+         * The copy of the tile map
+         */
+        private final TileMapModel _tileMapModel;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param revision The revision of the tile map when the snapshot was taken
+         * @param tileMapModel The copy of the tile map
+         */
+        private Snapshot(long revision, TileMapModel tileMapModel) {
+            _revision = revision;
+            _tileMapModel = tileMapModel;
+        }
+    }
+
+    /**
+     * Constructs a new instance of this class type
+     */
+    private AutosaveService() {
+    }
+
+    /**
+     * Gets the singleton instance reference of this class type
+     *
+     * @return The singleton reference of this class type
+     */
+    public static synchronized AutosaveService instance() {
+        if(_instance == null) {
+            _instance = new AutosaveService();
+        }
+        return _instance;
+    }
+
+    /**
+     * Starts verifying the project for changes
+     */
+    public void start() {
+        _timer.start();
+    }
+
+    /**
+     * Stops verifying the project for changes, a save that is in progress is not interrupted
+     */
+    public void stop() {
+        _timer.stop();
+    }
+
+    /**
+     * Verifies the models for changes and saves them when needed
+     *
+     * Note: This is called on the event dispatch thread
+     */
+    private void poll() {
+        if(_isSaving || !AbstractFactory.isRunning() || !AbstractFactory.getFactory(ModelFactory.class).exists(ProjectModel.class)) {
+            return;
+        }
+
+        ModelFactory modelFactory = AbstractFactory.getFactory(ModelFactory.class);
+        ProjectModel projectModel = modelFactory.get(ProjectModel.class);
+        List<TileLayerModel> tileLayerModels = modelFactory.getAll(TileLayerModel.class);
+        List<TileMapModel> tileMapModels = modelFactory.getAll(TileMapModel.class);
+
+        // The revision of the project changes whenever anything within it changes
+        long revision = projectModel.getRevision() + tileLayerModels.size() + tileMapModels.size();
+        for(TileLayerModel tileLayerModel : tileLayerModels) {
+            revision += tileLayerModel.getRevision();
+        }
+        for(TileMapModel tileMapModel : tileMapModels) {
+            revision += tileMapModel.getContentRevision();
+        }
+
+        long time = System.currentTimeMillis();
+        if(revision != _lastRevision) {
+            if(_lastRevision == _savedRevision) {
+                _firstEditTime = time;
+            }
+            _lastRevision = revision;
+            _lastEditTime = time;
+        }
+
+        if(revision == _savedRevision) {
+            return;
+        }
+
+        if(time - _lastEditTime >= IDLE_DELAY || Math.abs(revision - _savedRevision) >= EDIT_THRESHOLD || time - _firstEditTime >= MAXIMUM_DELAY) {
+            save(revision, projectModel, tileLayerModels, tileMapModels);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the specified models and writes it on the worker
+     *
+     * @param revision The revision of the project
+     * @param projectModel The project
+     * @param tileLayerModels The layers of the project
+     * @param tileMapModels The tile maps of the project
+     */
+    private void save(long revision, ProjectModel projectModel, List<TileLayerModel> tileLayerModels, List<TileMapModel> tileMapModels) {
+
+        long snapshotStart = System.nanoTime();
+
+        // The identifier of the project keeps projects that share the same name from overwriting each other
+        File file = new File(DIRECTORY, projectModel.getName().replaceAll("[^A-Za-z0-9._-]", "_") + "_" + projectModel.getUUID() + BinaryFileSystem.EXTENSION_BINARY);
+        File temporaryFile = new File(DIRECTORY, file.getName() + ".tmp");
+        BinaryFileSystem fileSystem = new BinaryFileSystem(temporaryFile);
+
+        ProjectModel projectSnapshot = new ProjectModel();
+        projectSnapshot.copyData(projectModel);
+        fileSystem.write(projectSnapshot);
+
+        for(TileLayerModel tileLayerModel : tileLayerModels) {
+            TileLayerModel tileLayerSnapshot = new TileLayerModel();
+            tileLayerSnapshot.copyData(tileLayerModel);
+            fileSystem.write(tileLayerSnapshot);
+        }
+
+        // Only the tile maps that changed since the previous snapshot are copied
+        Map<TileMapModel, Snapshot> snapshots = new IdentityHashMap<>();
+        List<TileModel> tileModels = new ArrayList<>();
+        for(TileMapModel tileMapModel : tileMapModels) {
+            long tileMapRevision = tileMapModel.getContentRevision();
+            Snapshot snapshot = _snapshots.get(tileMapModel);
+            if(snapshot == null || snapshot._revision != tileMapRevision) {
+                TileMapModel tileMapSnapshot = new TileMapModel();
+                tileMapSnapshot.copyData(tileMapModel);
+
+                List<TileModel> tileSnapshots = new ArrayList<>();
+                for(TileModel tileModel : tileMapModel.getTiles()) {
+                    TileModel tileSnapshot = new TileModel();
+                    tileSnapshot.copyData(tileModel);
+                    tileSnapshots.add(tileSnapshot);
+                }
+                tileMapSnapshot.setTiles(tileSnapshots);
+
+                snapshot = new Snapshot(tileMapRevision, tileMapSnapshot);
+            }
+
+            snapshots.put(tileMapModel, snapshot);
+            tileModels.addAll(snapshot._tileMapModel.getTiles());
+            fileSystem.write(snapshot._tileMapModel);
+        }
+        _snapshots = snapshots;
+
+        long snapshotTime = (System.nanoTime() - snapshotStart) / 1000000;
+        _isSaving = true;
+
+        _executor.execute(() -> {
+            long writeStart = System.nanoTime();
+            boolean isSaved = false;
+            try {
+                // The tile maps of a partially opened project are still within its chunked file, they are
+                // read here so that the autosave holds the entire project and not only what was opened
+                if(!ChunkedFileSystem.deserializeUnloadedTileMaps(projectSnapshot, tileMapModel -> {
+                    tileModels.addAll(tileMapModel.getTiles());
+                    fileSystem.write(tileMapModel);
+                })) {
+                    Tracelog.log(Level.SEVERE, true, "Cannot autosave " + file + ", the tile maps that were not opened could not be read");
+                }
+                else {
+                    TileModel.encodeImages(tileModels);
+                    if(fileSystem.serialize() != null) {
+                        try {
+                            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        }
+                        catch(AtomicMoveNotSupportedException exception) {
+                            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        }
+                        isSaved = true;
+                    }
+                }
+            }
+            catch(Exception exception) {
+                Tracelog.log(Level.SEVERE, true, exception);
+            }
+
+            long writeTime = (System.nanoTime() - writeStart) / 1000000;
+            if(isSaved) {
+                Tracelog.log(Level.INFO, true, "Autosaved " + file + ", snapshot took " + snapshotTime + "ms and writing took " + writeTime + "ms");
+            }
+
+            boolean isSuccessful = isSaved;
+            SwingUtilities.invokeLater(() -> {
+                if(isSuccessful) {
+                    _savedRevision = revision;
+                }
+                _isSaving = false;
+            });
+        });
+    }
+}
\ No newline at end of file
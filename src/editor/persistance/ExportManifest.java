@@ -0,0 +1,265 @@
+package editor.persistance;
+
+import java.awt.Rectangle;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+
+import framework.utils.io.BinaryReader;
+import framework.utils.io.BinaryWriter;
+import framework.utils.logging.Tracelog;
+
+/**
+ * A manifest of the files written by an export, it is written next to the export so that the next export
+ * into the same location can skip everything that has not changed since.  Every export names its own
+ * manifest, so that different exports into the same location do not overwrite each other's manifest.
+ *
+ * Every entry remembers the content hash of what was exported along with the length of the file that was
+ * written, and optionally the page and the area that it occupies within an image.  An entry is only trusted
+ * if its file still has the length that was recorded
+ *
+ * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
+ */
+public final class ExportManifest {
+
+    /**
+     * The extension used for manifest files
+     */
+    public static final String EXTENSION = ".manifest";
+
+    /**
+     * The header that every manifest starts with
+     */
+    private static final byte[] MAGIC = "MEXP".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The version of the manifest format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The location of the manifest file
+     */
+    private final File _file;
+
+    /**
+     * The entries of the manifest, by their key
+     */
+    private final TreeMap<String, Entry> _entries = new TreeMap<>();
+
+    /**
+     * An entry of the manifest
+     *
+     * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
+     */
+    public static final class Entry {
+
+        /**
+         * The content hash of what was exported
+         */
+        private final String _hash;
+
+        /**
+         * The length of the file that was written, or a negative value if the entry has no file of its own
+         */
+        private final long _length;
+
+        /**
+         * The page of the image where the content was drawn
+         */
+        private final int _page;
+
+        /**
+         * The area of the image where the content was drawn
+         */
+        private final Rectangle _bounds;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param hash The content hash of what was exported
+         * @param length The length of the file that was written, or a negative value if the entry has no file of its own
+         * @param page The page of the image where the content was drawn
+         * @param bounds The area of the image where the content was drawn
+         */
+        public Entry(String hash, long length, int page, Rectangle bounds) {
+            _hash = hash;
+            _length = length;
+            _page = page;
+            _bounds = new Rectangle(bounds);
+        }
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param hash The content hash of what was exported
+         * @param length The length of the file that was written
+         */
+        public Entry(String hash, long length) {
+            this(hash, length, 0, new Rectangle());
+        }
+
+        /**
+         * Gets the content hash of what was exported
+         *
+         * @return The content hash
+         */
+        public String getHash() {
+            return _hash;
+        }
+
+        /**
+         * Gets the length of the file that was written
+         *
+         * @return The length of the file, or a negative value if the entry has no file of its own
+         */
+        public long getLength() {
+            return _length;
+        }
+
+        /**
+         * Gets the page of the image where the content was drawn
+         *
+         * @return The page
+         */
+        public int getPage() {
+            return _page;
+        }
+
+        /**
+         * Gets the area of the image where the content was drawn
+         *
+         * @return A copy of the area
+         */
+        public Rectangle getBounds() {
+            return new Rectangle(_bounds);
+        }
+
+        /**
+         * Indicates if the specified file is still the file that was written for this entry
+         *
+         * @param file The file
+         *
+         * @return TRUE if the file exists and has the length that was recorded, FALSE otherwise
+         */
+        public boolean isWritten(File file) {
+            return file.isFile() && file.length() == _length;
+        }
+    }
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param file The location of the manifest file
+     */
+    public ExportManifest(File file) {
+        _file = file;
+    }
+
+    /**
+     * Reads the specified manifest file
+     *
+     * @param file The location of the manifest file
+     *
+     * @return The manifest, this is empty if there is no manifest or if it could not be read
+     */
+    public static ExportManifest read(File file) {
+        ExportManifest manifest = new ExportManifest(file);
+        if(!manifest._file.isFile()) {
+            return manifest;
+        }
+
+        try(BinaryReader reader = new BinaryReader(new BufferedInputStream(new FileInputStream(manifest._file)))) {
+            if(!Arrays.equals(reader.readRaw(MAGIC.length), MAGIC) || reader.readVarInt() != VERSION) {
+                throw new IOException("The manifest " + manifest._file + " is not supported");
+            }
+            for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+                String key = reader.readString();
+                String hash = reader.readString();
+                long length = reader.readLong();
+                int page = reader.readVarInt();
+                Rectangle bounds = new Rectangle(reader.readVarInt(), reader.readVarInt(), reader.readVarInt(), reader.readVarInt());
+                manifest._entries.put(key, new Entry(hash, length, page, bounds));
+            }
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.WARNING, true, exception);
+            manifest._entries.clear();
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Writes this manifest
+     */
+    public void write() {
+        try(BinaryWriter writer = new BinaryWriter(new BufferedOutputStream(new FileOutputStream(_file)))) {
+            writer.writeRaw(MAGIC);
+            writer.writeVarInt(VERSION);
+            synchronized(_entries) {
+                writer.writeVarInt(_entries.size());
+                for(Map.Entry<String, Entry> entry : _entries.entrySet()) {
+                    Entry value = entry.getValue();
+                    writer.writeString(entry.getKey());
+                    writer.writeString(value._hash);
+                    writer.writeLong(value._length);
+                    writer.writeVarInt(value._page);
+                    writer.writeVarInt(value._bounds.x);
+                    writer.writeVarInt(value._bounds.y);
+                    writer.writeVarInt(value._bounds.width);
+                    writer.writeVarInt(value._bounds.height);
+                }
+            }
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+        }
+    }
+
+    /**
+     * Gets the entry with the specified key
+     *
+     * @param key The key of the entry
+     *
+     * @return The entry, or null if there is no entry with the specified key
+     */
+    public Entry get(String key) {
+        synchronized(_entries) {
+            return _entries.get(key);
+        }
+    }
+
+    /**
+     * Gets the entries of this manifest whose key starts with the specified prefix
+     *
+     * @param prefix The prefix of the keys
+     *
+     * @return The entries by their key, in the order of their key
+     */
+    public Map<String, Entry> getEntries(String prefix) {
+        synchronized(_entries) {
+            return new TreeMap<>(_entries.subMap(prefix, prefix + Character.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Puts the specified entry into this manifest, this can be called from any thread
+     *
+     * @param key The key of the entry
+     * @param entry The entry
+     */
+    public void put(String key, Entry entry) {
+        synchronized(_entries) {
+            _entries.put(key, entry);
+        }
+    }
+}
\ No newline at end of file
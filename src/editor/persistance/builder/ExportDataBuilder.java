@@ -1,8 +1,10 @@
 package editor.persistance.builder;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Map;
 
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 
@@ -15,6 +17,7 @@ import framework.communication.internal.signal.arguments.EventArgs;
 import framework.communication.internal.signal.arguments.PipelinedEventArgs;
 import framework.core.factories.AbstractSignalFactory;
 import framework.core.factories.ModelFactory;
+import framework.core.graphics.PngEncoder;
 import framework.core.system.Application;
 import framework.core.system.GameValues;
 import framework.utils.globalisation.Localization;
@@ -44,6 +47,79 @@ public final class ExportDataBuilder extends AbstractBuilder<TileMapFileSystem>
      */
     private final String TILEMAP_FILENAME = "tilemap";
 
+    /**
+     * The folder to export into, or null if the user chooses the folder
+     */
+    private final File _exportFolder;
+
+    /**
+     * The models to export, or null if the models of the application are exported
+     */
+    private final Collection<? extends IModel> _models;
+
+    /**
+     * The encoder of the pages of the exported tile map image,
+     * by default images are stored with a palette when all their colors fit within one
+     */
+    private PngEncoder _pngEncoder = new PngEncoder();
+
+    /**
+     * Indicates if the lookup enums are compiled into the exported jar
+     */
+    private boolean _isGeneratingLookupClasses = true;
+
+    /**
+     * The check box used to indicate if the lookup enums should be compiled into the exported jar
+     */
+    private final JCheckBox _lookupClassesCheckBox = new JCheckBox(Localization.instance().getLocalizedString(ResourceKeys.GenerateLookupClasses), true);
+
+    /**
+     * The game property that holds the lookup enums state that was last used
+     */
+    private static final String LOOKUP_CLASSES_PROPERTY = "ExportDataBuilder.GenerateLookupClasses";
+
+    /**
+     * Constructs a new instance of this class type, the user chooses the folder to export
+     * the models of the application into
+     */
+    public ExportDataBuilder() {
+        this(null, null);
+    }
+
+    /**
+     * Constructs a new instance of this class type that exports the specified models into the specified
+     * folder without any user interaction, the folder is overwritten if it already exists
+     * 
+     * @param exportFolder The folder to export into
+     * @param models The models to export
+     */
+    public ExportDataBuilder(File exportFolder, Collection<? extends IModel> models) {
+        _exportFolder = exportFolder;
+        _models = models;
+    }
+
+    /**
+     * Sets the encoder of the pages of the exported tile map image
+     * 
+     * @param pngEncoder The encoder, or null if the images should be written without any encoding options
+     */
+    public void setPngEncoder(PngEncoder pngEncoder) {
+        _pngEncoder = pngEncoder;
+    }
+
+    /**
+     * Sets if the lookup enums are compiled into the exported jar.  Without them, games look up the data by
+     * name through {@link framework.utils.io.LookupIndex#instance()}, which reads the exported lookup index from
+     * the path of the {@link framework.core.system.EngineProperties.Property#DATA_PATH_LOOKUP} engine property
+     *
+     * Note: Not generating the lookup enums makes exporting much faster, as no compiler is involved
+     *
+     * @param isGeneratingLookupClasses If the lookup enums should be generated
+     */
+    public void setGeneratingLookupClasses(boolean isGeneratingLookupClasses) {
+        _isGeneratingLookupClasses = isGeneratingLookupClasses;
+    }
+
     /**
      * Helper method used to create a folder. This method will prompt the user to chose
      * the location of the folder for creation.
@@ -86,6 +162,12 @@ public final class ExportDataBuilder extends AbstractBuilder<TileMapFileSystem>
 
     @Override public boolean buildStart() {
 
+        // The export folder is already known when exporting without user interaction
+        if(_exportFolder != null) {
+            _fileSystem = createFileSystem(_exportFolder);
+            return true;
+        }
+
         // Initialize the file choose to the desktop of the user
         JFileChooser fileChooser = new JFileChooser(System.getProperty("user.home") + File.separator + "desktop");
 
@@ -95,13 +177,21 @@ public final class ExportDataBuilder extends AbstractBuilder<TileMapFileSystem>
         // Remove the all files filter
         fileChooser.setAcceptAllFileFilterUsed(false);
 
+        // Let the user choose if the lookup enums are generated, using the choice that was made last time
+        if(GameValues.exists(LOOKUP_CLASSES_PROPERTY)) {
+            _lookupClassesCheckBox.setSelected(Boolean.parseBoolean(GameValues.getGameValue(LOOKUP_CLASSES_PROPERTY)));
+        }
+        fileChooser.setAccessory(_lookupClassesCheckBox);
+
         // Sets the default folder to the suggested name
         fileChooser.setSelectedFile(null);
 
         // Get the file location of the export folder
         File exportFile = createExportFolder(fileChooser);
         if(exportFile != null) {
-            _fileSystem = new TileMapFileSystem(new File(exportFile.getAbsolutePath() + DATA_FILE_PATH + TILEMAP_FILENAME + IXMLCodec.EXTENSION_XML));
+            GameValues.addGameProperty(LOOKUP_CLASSES_PROPERTY, Boolean.toString(_lookupClassesCheckBox.isSelected()));
+            _isGeneratingLookupClasses = _lookupClassesCheckBox.isSelected();
+            _fileSystem = createFileSystem(exportFile);
         } 
         else {
             _fileSystem = null;
@@ -110,8 +200,34 @@ public final class ExportDataBuilder extends AbstractBuilder<TileMapFileSystem>
         return _fileSystem != null;
     }
 
+    /**
+     * Creates the file system that exports into the specified folder
+     * 
+     * @param exportFile The export folder
+     * 
+     * @return The file system
+     */
+    private TileMapFileSystem createFileSystem(File exportFile) {
+        TileMapFileSystem fileSystem = new TileMapFileSystem(new File(exportFile.getAbsolutePath() + DATA_FILE_PATH + TILEMAP_FILENAME + IXMLCodec.EXTENSION_XML));
+        fileSystem.setSharingDuplicates(true);
+        fileSystem.setPngEncoder(_pngEncoder);
+        fileSystem.setGeneratingLookupClasses(_isGeneratingLookupClasses);
+        return fileSystem;
+    }
+
     @Override public void buildContent() {
 
+        // Pipe the tile maps and the tile layers that were specified, otherwise pipe those of the application
+        if(_models != null) {
+            for(IModel model : _models) {
+                if(model instanceof TileMapModel || model instanceof TileLayerModel) {
+                    pipeData(model);
+                }
+            }
+            _fileSystem.generateTileMap();
+            return;
+        }
+
         // Pipe all of the tile maps into the file system
         AbstractSignalFactory.getFactory(ModelFactory.class).multicastSignalListeners(
             TileMapModel.class, 
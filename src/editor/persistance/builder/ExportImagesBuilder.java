@@ -1,10 +1,13 @@
 package editor.persistance.builder;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Map;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
 
 import framework.api.IModel;
 import framework.communication.external.builder.AbstractBuilder;
@@ -14,6 +17,7 @@ import framework.communication.internal.signal.arguments.EventArgs;
 import framework.communication.internal.signal.arguments.PipelinedEventArgs;
 import framework.core.factories.AbstractSignalFactory;
 import framework.core.factories.ModelFactory;
+import framework.core.graphics.PngEncoder;
 import framework.core.system.Application;
 import framework.core.system.GameValues;
 import framework.utils.globalisation.Localization;
@@ -27,6 +31,51 @@ import resources.ResourceKeys;
  */
 public final class ExportImagesBuilder extends AbstractBuilder<ImageFileSystem> implements IDataPipeline<IModel> {
 
+    /**
+     * The folder to export into, or null if the user chooses the folder
+     */
+    private final File _exportFolder;
+
+    /**
+     * The models to export, or null if the models of the application are exported
+     */
+    private final Collection<? extends IModel> _models;
+
+    /**
+     * The encoder of the exported images,
+     * by default images are stored with a palette when all their colors fit within one
+     */
+    private PngEncoder _pngEncoder = new PngEncoder();
+
+    /**
+     * Constructs a new instance of this class type, the user chooses the folder to export
+     * the models of the application into
+     */
+    public ExportImagesBuilder() {
+        this(null, null);
+    }
+
+    /**
+     * Constructs a new instance of this class type that exports the specified models into the specified
+     * folder without any user interaction, the folder is overwritten if it already exists
+     * 
+     * @param exportFolder The folder to export into
+     * @param models The models to export
+     */
+    public ExportImagesBuilder(File exportFolder, Collection<? extends IModel> models) {
+        _exportFolder = exportFolder;
+        _models = models;
+    }
+
+    /**
+     * Sets the encoder of the exported images
+     * 
+     * @param pngEncoder The encoder, or null if the images should be written without any encoding options
+     */
+    public void setPngEncoder(PngEncoder pngEncoder) {
+        _pngEncoder = pngEncoder;
+    }
+
     /**
      * Helper method used to create a folder. This method will prompt the user to chose
      * the location of the folder for creation.
@@ -69,6 +118,14 @@ public final class ExportImagesBuilder extends AbstractBuilder<ImageFileSystem>
 
     @Override public boolean buildStart() {
 
+        // The export folder is already known when exporting without user interaction
+        if(_exportFolder != null) {
+            _exportFolder.mkdirs();
+            _fileSystem = new ImageFileSystem(_exportFolder);
+            _fileSystem.setPngEncoder(_pngEncoder);
+            return true;
+        }
+
         // Initialize the file choose to the desktop of the user
         JFileChooser fileChooser = new JFileChooser(System.getProperty("user.home") + File.separator + "desktop");
 
@@ -88,10 +145,24 @@ public final class ExportImagesBuilder extends AbstractBuilder<ImageFileSystem>
         }
 
         // If no file system is created then the export folder was cancelled
+        if(_fileSystem != null) {
+            _fileSystem.setPngEncoder(_pngEncoder);
+        }
         return _fileSystem != null;
     }
 
     @Override public void buildContent() {
+
+        // Pipe the tile map models that were specified
+        if(_models != null) {
+            for(IModel model : _models) {
+                if(model instanceof TileMapModel) {
+                    pipeData(model);
+                }
+            }
+            return;
+        }
+
         // Pipe the list of tile map models
         AbstractSignalFactory.getFactory(ModelFactory.class).multicastSignalListeners(
             TileMapModel.class, 
@@ -104,7 +175,47 @@ public final class ExportImagesBuilder extends AbstractBuilder<ImageFileSystem>
     }
 
     @Override public void buildEnd() {
-        _fileSystem.serialize();
+
+        // The tile maps are only read here, on the thread that modifies them, the export reads the snapshot
+        _fileSystem.snapshot();
+
+        // Without user interaction there is nothing to keep responsive, the images are exported right away
+        if(_exportFolder != null) {
+            _fileSystem.serialize();
+            return;
+        }
+
+        // The images are exported in the background so that the user interface remains responsive, the
+        // progress of the export is shown and the export can be cancelled
+        ProgressMonitor progressMonitor = new ProgressMonitor(
+                Application.instance, 
+                Localization.instance().getLocalizedString(ResourceKeys.ExportImages), 
+                null, 
+                0, 
+                100
+                );
+
+        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            @Override protected Void doInBackground() throws Exception {
+                _fileSystem.setProgressListener((completed, total) -> setProgress(completed * 100 / total));
+                _fileSystem.serialize();
+                return null;
+            }
+            @Override protected void done() {
+                progressMonitor.close();
+            }
+        };
+
+        worker.addPropertyChangeListener(event -> {
+            if(progressMonitor.isCanceled()) {
+                _fileSystem.cancel();
+            }
+            else if("progress".equals(event.getPropertyName())) {
+                progressMonitor.setProgress((Integer) event.getNewValue());
+            }
+        });
+
+        worker.execute();
     }
 
     @Override public Map<String, SignalListenerContainer> getSignals() {
@@ -1,30 +1,43 @@
 package editor.persistance.builder;
 
+import java.awt.BorderLayout;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 
 import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.xml.bind.JAXBException;
 
 import framework.communication.external.builder.AbstractBuilder;
+import framework.communication.external.filesystem.AbstractFileSystem;
 import framework.communication.external.filesystem.FileSystem;
-import framework.communication.internal.persistance.IXMLCodec.XMLCodec;
 import framework.core.factories.AbstractSignalFactory;
 import framework.core.factories.ModelFactory;
 import framework.core.factories.ViewFactory;
 import framework.core.system.Application;
 import framework.core.system.GameValues;
+import framework.utils.globalisation.Localization;
 import framework.utils.logging.Tracelog;
 
 import editor.models.ProjectModel;
 import editor.models.TileLayerModel;
 import editor.models.TileMapModel;
 import editor.models.TileModel;
+import editor.persistance.filesystem.BinaryFileSystem;
+import editor.persistance.filesystem.ChunkedFileSystem;
+import editor.persistance.filesystem.ChunkedFileSystem.Chunk;
 import editor.views.LayersDialogView;
 import editor.views.ProjectView;
 import editor.views.TileMapView;
+import resources.ResourceKeys;
 
 /**
  * Builder pattern used for loading a map
@@ -32,93 +45,206 @@ import editor.views.TileMapView;
  * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
  *
  */
-public final class LoadTileMapBuilder extends AbstractBuilder<FileSystem> {
+public final class LoadTileMapBuilder extends AbstractBuilder<AbstractFileSystem> {
 
     /**
-     * Builds the list of layers back into the application
+     * The tile maps that have been read but that cannot be built until the rest of the project has been built
      */
-    private void buildLayers() {
-        // Get the list of layer models from the file system
-        List<TileLayerModel> tileLayerModels = _fileSystem.getData(TileLayerModel.class);
+    private final List<TileMapModel> _pendingTileMaps = new ArrayList<>();
+
+    /**
+     * Indicates if the project has been built
+     */
+    private boolean _projectBuilt;
+
+    /**
+     * Indicates if the layers have been built
+     */
+    private boolean _layersBuilt;
 
-        if(tileLayerModels != null) {
-            for(TileLayerModel tileLayerModel  : tileLayerModels) {
-                // Queue the resources from the file system for later consumption 
-                AbstractSignalFactory.getFactory(ModelFactory.class).queueResource(tileLayerModel);
+    /**
+     * Builds the specified model as soon as it has been read from the file system.  The project and its
+     * layers are built first, then every tile map is built and released before the next one is read, so that
+     * only a single tile map is ever held in memory.
+     *
+     * Note: Files that are not ordered have their tile maps kept until all the models have been read
+     *
+     * @param model The model that was read
+     */
+    private void buildModel(Object model) {
+        if(model instanceof ProjectModel) {
+            buildProject((ProjectModel) model);
+        }
+        else if(model instanceof TileLayerModel) {
+            // Queue the resources from the file system for later consumption
+            AbstractSignalFactory.getFactory(ModelFactory.class).queueResource((TileLayerModel) model);
+        }
+        else if(model instanceof TileMapModel) {
+            if(_projectBuilt && _fileSystem.isOrdered()) {
+                // Layers must be built before the tile maps or the layers will be cleared
+                buildLayers();
+                buildTileMap((TileMapModel) model);
+            }
+            else {
+                _pendingTileMaps.add((TileMapModel) model);
             }
+        }
+    }
 
-            // Load up the tile layers view.  What this does is it forces the view to be created, thus 
-            // generating a controller, which will take the above layers that have been pushed on the queue
-            // and will populate the necessary structures for the layers to exist within the application.
-            AbstractSignalFactory.getFactory(ViewFactory.class).add(new LayersDialogView(), true);
+    /**
+     * Builds the list of layers back into the application
+     */
+    private void buildLayers() {
+        if(_layersBuilt) {
+            return;
         }
+
+        // Load up the tile layers view.  What this does is it forces the view to be created, thus 
+        // generating a controller, which will take the layers that have been pushed on the queue
+        // and will populate the necessary structures for the layers to exist within the application.
+        AbstractSignalFactory.getFactory(ViewFactory.class).add(new LayersDialogView(), true);
+        _layersBuilt = true;
     }
 
     /**
      * Builds the main project surrounding the application session
+     *
+     * @param model The project model
      */
-    private void buildProject() {
-        List<ProjectModel> projectModels = _fileSystem.getData(ProjectModel.class);
-        if(projectModels.size() != 1) {
-            Tracelog.log(Level.SEVERE, true, "Could not load the main project, something went wrong");
+    private void buildProject(ProjectModel model) {
+        if(_projectBuilt) {
+            Tracelog.log(Level.SEVERE, true, "Could not load the main project, more than one project was found");
             return;
         }
 
-        // Get a reference to the project model
-        ProjectModel model = projectModels.get(0);
+        // A project that is not read from a chunked file has no tile maps left within one
+        if(!(_fileSystem instanceof ChunkedFileSystem)) {
+            ChunkedFileSystem.removeSession(model);
+        }
 
         // Get the list of tile map setup models from the file system and queue them into the factory
         AbstractSignalFactory.getFactory(ModelFactory.class).queueResource(model);
 
         // Create a new main window view that is shared among the entire application and render it
         AbstractSignalFactory.getFactory(ViewFactory.class).add(new ProjectView(model.getName()), true);
+        _projectBuilt = true;
     }
 
     /**
-     * Builds the list of tile maps back into the application
+     * Builds the specified tile map back into the application
+     *
+     * @param model The tile map model
      */
-    private void buildTileMaps() {
-        // Get the list of tile maps from the file system
-        List<TileMapModel> tileMaps = _fileSystem.getData(TileMapModel.class);
+    private void buildTileMap(TileMapModel model) {
 
-        // Go through each tile map and queue it in the factory
-        for(TileMapModel model : tileMaps) {
+        // Get the list of tile map setup models from the file system and queue them into the factory
+        AbstractSignalFactory.getFactory(ModelFactory.class).queueResource(model);
 
-            // Get the list of tile map setup models from the file system and queue them into the factory
-            AbstractSignalFactory.getFactory(ModelFactory.class).queueResource(model);
+        // Get the list of tile map setup models from the file system and queue them into the factory
+        for(TileModel tileMapModel : model.getTiles()) {
+            AbstractSignalFactory.getFactory(ModelFactory.class).queueResource(tileMapModel);	
+        }
 
-            // Get the list of tile map setup models from the file system and queue them into the factory
-            for(TileModel tileMapModel : model.getTiles()) {
-                AbstractSignalFactory.getFactory(ModelFactory.class).queueResource(tileMapModel);	
-            }
+        // Clear the list of tiles, they should only exist in the cache
+        model.getTiles().clear();
+
+        // Create a new tile map views and render it's contents
+        TileMapView tileMapView = AbstractSignalFactory.getFactory(ViewFactory.class).add(
+                new TileMapView(model.getName(), model.getRows(), model.getColumns(), model.getWidth(), model.getHeight()), 
+                false
+                );
+
+        tileMapView.setLocation(
+            model.getXCoordinate(),
+            model.getYCoordinate()
+        );
+
+        tileMapView.render();
+    }
+
+    /**
+     * Prompts the user for the tile maps to open from the specified chunked file system, only
+     * the selected tile maps will be read from the file
+     *
+     * @param fileSystem The chunked file system
+     *
+     * @return TRUE if the user selected the tile maps to open, FALSE otherwise
+     */
+    private boolean selectTileMaps(ChunkedFileSystem fileSystem) {
+        List<Chunk> tileMaps;
+        try {
+            tileMaps = fileSystem.getTileMaps();
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+            return false;
+        }
+
+        // There is nothing to choose from, open everything
+        if(tileMaps.size() <= 1) {
+            return true;
+        }
+
+        JList<Chunk> tileMapsList = new JList<>(tileMaps.toArray(new Chunk[tileMaps.size()]));
+        tileMapsList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        tileMapsList.setSelectionInterval(0, tileMaps.size() - 1);
+        tileMapsList.setVisibleRowCount(Math.min(tileMaps.size(), 10));
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JLabel(Localization.instance().getLocalizedString(ResourceKeys.SelectTileMaps)), BorderLayout.NORTH);
+        panel.add(new JScrollPane(tileMapsList), BorderLayout.CENTER);
+
+        if(JOptionPane.showConfirmDialog(
+                Application.instance,
+                panel,
+                Localization.instance().getLocalizedString(ResourceKeys.OpenTileMaps),
+                JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION || tileMapsList.isSelectionEmpty()) {
+            return false;
+        }
 
-            // Clear the list of tiles, they should only exist in the cache
-            model.getTiles().clear();
+        List<UUID> selection = new ArrayList<>();
+        for(Chunk chunk : tileMapsList.getSelectedValuesList()) {
+            selection.add(chunk.getUUID());
+        }
+        fileSystem.setSelection(selection);
 
-            // Create a new tile map views and render it's contents
-            TileMapView tileMapView = AbstractSignalFactory.getFactory(ViewFactory.class).add(
-                    new TileMapView(model.getName(), model.getRows(), model.getColumns(), model.getWidth(), model.getHeight()), 
-                    false
-                    );
-            
-            tileMapView.setLocation(
-                model.getXCoordinate(),
-                model.getYCoordinate()
-            );
+        return true;
+    }
 
-            tileMapView.render();
+    /**
+     * Gets the file system that reads the specified project file, based on the format of the file
+     *
+     * Note: This does not involve any user interaction, all the tile maps of a chunked file are read
+     *
+     * @param file The project file
+     *
+     * @return The file system of the project file
+     */
+    public static AbstractFileSystem getFileSystem(File file) {
+        if(ChunkedFileSystem.isChunked(file)) {
+            return new ChunkedFileSystem(file);
         }
+
+        return BinaryFileSystem.isBinary(file) ? new BinaryFileSystem(file) : new FileSystem(file);
     }
 
     @Override public void buildContent() {
-        // Build the project contents
-        buildProject();
+        // Stream the contents of the file, models are built as they are read
+        if(!_fileSystem.deserialize(this::buildModel)) {
+            Tracelog.log(Level.SEVERE, true, "Could not read all the contents of the project file");
+        }
 
-        // Layers must be built before the tile maps or the layers will be cleared
-        buildLayers();
+        if(!_projectBuilt) {
+            Tracelog.log(Level.SEVERE, true, "Could not load the main project, something went wrong");
+        }
 
-        // Build the list of tile maps
-        buildTileMaps();
+        // Build whatever could not be built while the file was being read
+        buildLayers();
+        for(TileMapModel model : _pendingTileMaps) {
+            buildTileMap(model);
+        }
+        _pendingTileMaps.clear();
     }
 
     @Override public void buildEnd() {
@@ -130,7 +256,7 @@ public final class LoadTileMapBuilder extends AbstractBuilder<FileSystem> {
         // the save process
         JFileChooser fileChooser = new JFileChooser(System.getProperty("user.home") + File.separator + "desktop");
         fileChooser.setAcceptAllFileFilterUsed(false);
-        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Only .xml files", "xml"));
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Project files (*.xml, *.mead, *.mpak)", "xml", "mead", "mpak"));
 
         // Set the directory location
         if(GameValues.exists(fileChooser.getClass().getSimpleName())) {
@@ -148,21 +274,24 @@ public final class LoadTileMapBuilder extends AbstractBuilder<FileSystem> {
             // Store within the game properties the selected directory
             GameValues.addGameProperty(fileChooser.getClass().getSimpleName(), fileChooser.getCurrentDirectory().toString());
 
-            // Create the codec for the file system
-            XMLCodec codec = XMLCodec.createInstance(FileSystem.class);
-            
-            try {
-                // Get the selected map file and unmarshal it
-                Object fileSystem = codec.getUnmarshaller().unmarshal(fileChooser.getSelectedFile());
-
-                // Create the file system 
-                _fileSystem = (FileSystem) fileSystem;
+            // Create the file system using the format of the selected map file, its contents
+            // are only read once the content is being built
+            File file = fileChooser.getSelectedFile();
+            if(file.isFile()) {
+                _fileSystem = getFileSystem(file);
+                if(_fileSystem instanceof ChunkedFileSystem && !selectTileMaps((ChunkedFileSystem) _fileSystem)) {
+                    return false;
+                }
+
+                // The contents are built as they are read, so the file must be verified
+                // first or a corrupt file would leave a partially built project behind
+                if(!_fileSystem.validate()) {
+                    Tracelog.log(Level.SEVERE, true, "Cannot load " + file + ", the project file is corrupt or incomplete");
+                    return false;
+                }
 
                 // Return true to indicate everything went well
                 return true;
-            } 
-            catch (JAXBException exception) {
-                Tracelog.log(Level.SEVERE, true, exception);
             }
         }
 
@@ -1,12 +1,18 @@
 package editor.persistance.builder;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 import framework.api.IModel;
 import framework.communication.external.builder.AbstractBuilder;
+import framework.communication.external.filesystem.AbstractFileSystem;
 import framework.communication.external.filesystem.FileSystem;
 import framework.communication.internal.persistance.IXMLCodec;
 import framework.communication.internal.signal.IDataPipeline;
@@ -18,10 +24,17 @@ import framework.core.factories.AbstractSignalFactory;
 import framework.core.factories.ModelFactory;
 import framework.core.system.Application;
 import framework.core.system.GameValues;
+import framework.utils.globalisation.Localization;
+import framework.utils.io.Paths;
+import framework.utils.logging.Tracelog;
 
 import editor.models.ProjectModel;
 import editor.models.TileLayerModel;
 import editor.models.TileMapModel;
+import editor.models.TileModel;
+import editor.persistance.filesystem.BinaryFileSystem;
+import editor.persistance.filesystem.ChunkedFileSystem;
+import resources.ResourceKeys;
 
 /**
  * Builder pattern used for saving a map, so that it can be loaded back afterwards
@@ -29,7 +42,38 @@ import editor.models.TileMapModel;
  * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
  *
  */
-public final class SaveTileMapBuilder extends AbstractBuilder<FileSystem> implements IDataPipeline<IModel> {
+public final class SaveTileMapBuilder extends AbstractBuilder<AbstractFileSystem> implements IDataPipeline<IModel> {
+
+    /**
+     * The file filter used for saving the project as xml
+     */
+    private final FileNameExtensionFilter XML_FILTER = new FileNameExtensionFilter("XML Project (*.xml)", Paths.cleanExtensionMark(IXMLCodec.EXTENSION_XML, true));
+
+    /**
+     * The file filter used for saving the project as binary
+     */
+    private final FileNameExtensionFilter BINARY_FILTER = new FileNameExtensionFilter("Binary Project (*.mead)", Paths.cleanExtensionMark(BinaryFileSystem.EXTENSION_BINARY, true));
+
+    /**
+     * The file filter used for saving the project as a chunked container
+     */
+    private final FileNameExtensionFilter CHUNKED_FILTER = new FileNameExtensionFilter("Chunked Project (*.mpak)", Paths.cleanExtensionMark(ChunkedFileSystem.EXTENSION_CHUNKED, true));
+
+    /**
+     * The check box used to indicate if the project should be compressed
+     */
+    private final JCheckBox _compressCheckBox = new JCheckBox(Localization.instance().getLocalizedString(ResourceKeys.Compress));
+
+    /**
+     * The game property that holds the compression state that was last used
+     */
+    private static final String COMPRESS_PROPERTY = "SaveTileMapBuilder.Compress";
+
+    /**
+     * The tile maps that were not opened from the chunked file of the project, they are written along with the
+     * rest of the project when it is saved into a file that is not chunked
+     */
+    private final List<TileMapModel> _unloadedTileMaps = new ArrayList<>();
 
     @Override public boolean buildStart() {
         ProjectModel projectModel = AbstractFactory.getFactory(ModelFactory.class).get(ProjectModel.class);
@@ -38,6 +82,17 @@ public final class SaveTileMapBuilder extends AbstractBuilder<FileSystem> implem
         // the save process
         JFileChooser fileChooser = new JFileChooser(System.getProperty("user.home") + File.separator + "desktop");
         fileChooser.setSelectedFile(new File(projectModel.getName() + IXMLCodec.EXTENSION_XML));
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        fileChooser.addChoosableFileFilter(XML_FILTER);
+        fileChooser.addChoosableFileFilter(BINARY_FILTER);
+        fileChooser.addChoosableFileFilter(CHUNKED_FILTER);
+        fileChooser.setFileFilter(XML_FILTER);
+        fileChooser.setAccessory(_compressCheckBox);
+
+        // Set the compression state that was last used
+        if(GameValues.exists(COMPRESS_PROPERTY)) {
+            _compressCheckBox.setSelected(Boolean.parseBoolean(GameValues.getGameValue(COMPRESS_PROPERTY)));
+        }
 
         // Set the directory location
         if(GameValues.exists(fileChooser.getClass().getSimpleName())) {
@@ -57,11 +112,44 @@ public final class SaveTileMapBuilder extends AbstractBuilder<FileSystem> implem
 
             // Store within the game properties the selected directory
             GameValues.addGameProperty(fileChooser.getClass().getSimpleName(), fileChooser.getCurrentDirectory().toString());
-
-            // Create a file system at the specified path
-            _fileSystem = new FileSystem(
-                    new File(fileChooser.getSelectedFile().getAbsolutePath() + IXMLCodec.EXTENSION_XML)
-                    );
+            GameValues.addGameProperty(COMPRESS_PROPERTY, Boolean.toString(_compressCheckBox.isSelected()));
+
+            // Create a file system at the specified path, using the format of the selected filter
+            String extension = IXMLCodec.EXTENSION_XML;
+            if(fileChooser.getFileFilter() == BINARY_FILTER) {
+                extension = BinaryFileSystem.EXTENSION_BINARY;
+            }
+            else if(fileChooser.getFileFilter() == CHUNKED_FILTER) {
+                extension = ChunkedFileSystem.EXTENSION_CHUNKED;
+            }
+
+            File file = fileChooser.getSelectedFile();
+            if(!file.getName().toLowerCase().endsWith(extension)) {
+                file = new File(file.getParentFile(), Paths.filenameNoExtension(file) + extension);
+            }
+
+            switch(extension) {
+            case BinaryFileSystem.EXTENSION_BINARY:
+                _fileSystem = new BinaryFileSystem(file);
+                break;
+            case ChunkedFileSystem.EXTENSION_CHUNKED:
+                _fileSystem = new ChunkedFileSystem(file);
+                break;
+            default:
+                _fileSystem = new FileSystem(file);
+                break;
+            }
+
+            // Chunked projects are read in parts, so they are never compressed as a whole
+            _fileSystem.setCompressed(_compressCheckBox.isSelected() && !(_fileSystem instanceof ChunkedFileSystem));
+
+            // The tile maps that were not opened from a chunked project only exist within that file.  Only a chunked
+            // file can carry them over, so they are read now to be written along with the rest of the project
+            _unloadedTileMaps.clear();
+            if(!(_fileSystem instanceof ChunkedFileSystem) && !ChunkedFileSystem.deserializeUnloadedTileMaps(projectModel, _unloadedTileMaps::add)) {
+                Tracelog.log(Level.SEVERE, true, "Cannot save " + file + ", the tile maps that were not opened would be lost");
+                return false;
+            }
 
             return true;
         }
@@ -77,19 +165,24 @@ public final class SaveTileMapBuilder extends AbstractBuilder<FileSystem> implem
                 AbstractFactory.getFactory(ModelFactory.class).get(ProjectModel.class)
                 );
 
-        // Send a message out to the setup model indicating that its contents should
-        // be piped back to us
+        // Send out a signal to the layers to indicate that there
+        // be a serialize.  Layers are written before the tile maps so that
+        // a project can be built while it is being read
         AbstractSignalFactory.getFactory(ModelFactory.class).multicastSignalListeners(
-                TileMapModel.class, 
+                TileLayerModel.class, 
                 new PipelinedEventArgs(this, IModel.EVENT_PIPE_DATA)
                 );
 
-        // Send out a signal to the layers to indicate that there
-        // be a serialize 
+        // Send a message out to the setup model indicating that its contents should
+        // be piped back to us
         AbstractSignalFactory.getFactory(ModelFactory.class).multicastSignalListeners(
-                TileLayerModel.class, 
+                TileMapModel.class, 
                 new PipelinedEventArgs(this, IModel.EVENT_PIPE_DATA)
                 );
+
+        for(TileMapModel tileMapModel : _unloadedTileMaps) {
+            _fileSystem.write(tileMapModel);
+        }
     }
 
     @Override public void pipeData(IModel data) {
@@ -97,6 +190,15 @@ public final class SaveTileMapBuilder extends AbstractBuilder<FileSystem> implem
     }
 
     @Override public void buildEnd() {
+
+        // Encode the images of all the tiles ahead of time and in parallel, the file
+        // system then only has to write the encoded images
+        List<TileModel> tileModels = new ArrayList<>();
+        for(TileMapModel tileMapModel : (List<TileMapModel>) _fileSystem.getData(TileMapModel.class)) {
+            tileModels.addAll(tileMapModel.getTiles());
+        }
+        TileModel.encodeImages(tileModels);
+
         _fileSystem.serialize();
     }
 
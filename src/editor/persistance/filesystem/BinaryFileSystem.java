@@ -0,0 +1,549 @@
+package editor.persistance.filesystem;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import framework.communication.external.filesystem.AbstractFileSystem;
+import framework.core.graphics.ImageStore.StoredImage;
+import framework.utils.io.BinaryReader;
+import framework.utils.io.BinaryWriter;
+import framework.utils.logging.Tracelog;
+
+import editor.models.ProjectModel;
+import editor.models.TileLayerModel;
+import editor.models.TileMapModel;
+import editor.models.TileModel;
+
+/**
+ * This file system persists a project using a compact binary format.  Strings are written once within a
+ * string table, identifiers are written as 128-bit values and tiles only hold the attributes that differ from
+ * their tile map.  Tiles that share an identical image reference a single copy of it.
+ *
+ * Note: Version 1 did not have an image table, the image of every tile was held within the tile
+ *
+ * The layout of the file is as follows
+ *
+ *   header    : magic, version
+ *   strings   : count, [string]...
+ *   uuids     : count, [128-bit uuid]...
+ *   images    : count, [png]...
+ *   project   : flag, [uuid, name]
+ *   layers    : count, [uuid index, name]...
+ *   tile maps : count, [uuid, name, rows, columns, width, height, x, y, tile count, [tile]...]...
+ *   tile      : uuid, flags, name, friendly name, [width, height], layer count, [uuid index]..., [image index]
+ *
+ * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
+ */
+public final class BinaryFileSystem extends AbstractFileSystem {
+
+    /**
+     * The extension used for binary project files
+     */
+    public static final String EXTENSION_BINARY = ".mead";
+
+    /**
+     * The version of the binary format written by this file system
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The bytes that every binary project file starts with
+     */
+    private static final byte[] MAGIC = { 'M', 'E', 'A', 'D' };
+
+    /**
+     * Flag indicating that a tile has a size that differs from its tile map
+     */
+    private static final int FLAG_SIZE = 0x1;
+
+    /**
+     * Flag indicating that a tile has an image
+     */
+    private static final int FLAG_IMAGE = 0x2;
+
+    /**
+     * The string table being built or read
+     */
+    private final List<String> _strings = new ArrayList<>();
+
+    /**
+     * The lookup of a string to its position within the string table
+     */
+    private final Map<String, Integer> _stringIndices = new HashMap<>();
+
+    /**
+     * The table of layer identifiers being built or read
+     */
+    private final List<UUID> _uuids = new ArrayList<>();
+
+    /**
+     * The lookup of an identifier to its position within the identifier table
+     */
+    private final Map<UUID, Integer> _uuidIndices = new HashMap<>();
+
+    /**
+     * The table of unique images being built or read
+     */
+    private final List<byte[]> _images = new ArrayList<>();
+
+    /**
+     * The lookup of a stored image to its position within the image table
+     */
+    private final Map<StoredImage, Integer> _imageIndices = new HashMap<>();
+
+    /**
+     * The version of the file being read
+     */
+    private int _version;
+
+    /**
+     * Constructs a new instance of this class type that is not associated to a file
+     *
+     * Note: This is used to encode and decode parts of a project held within another file
+     */
+    BinaryFileSystem() {
+    }
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param file The path associated to this file system
+     */
+    public BinaryFileSystem(File file) {
+        super(file);
+    }
+
+    /**
+     * Indicates if the specified file is a binary project file
+     *
+     * @param file The file to verify
+     *
+     * @return TRUE if the file starts with the binary header, FALSE otherwise
+     */
+    public static boolean isBinary(File file) {
+        try(DataInputStream stream = new DataInputStream(openInputStream(file))) {
+            byte[] magic = new byte[MAGIC.length];
+            stream.readFully(magic);
+            return Arrays.equals(magic, MAGIC);
+        }
+        catch(Exception exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds the specified string into the string table if it is not already there
+     *
+     * @param value The string value
+     */
+    private void addString(String value) {
+        value = value == null ? "" : value;
+        if(!_stringIndices.containsKey(value)) {
+            _stringIndices.put(value, _strings.size());
+            _strings.add(value);
+        }
+    }
+
+    /**
+     * Adds the specified identifier into the identifier table if it is not already there
+     *
+     * @param uuid The identifier
+     */
+    private void addUUID(UUID uuid) {
+        if(!_uuidIndices.containsKey(uuid)) {
+            _uuidIndices.put(uuid, _uuids.size());
+            _uuids.add(uuid);
+        }
+    }
+
+    /**
+     * Adds the image of the specified tile into the image table if it is not already there
+     *
+     * @param tileModel The tile
+     */
+    private void addImage(TileModel tileModel) {
+        StoredImage storedImage = tileModel.getStoredImage();
+        if(storedImage != null && !_imageIndices.containsKey(storedImage) && storedImage.getEncodedImage() != null) {
+            _imageIndices.put(storedImage, _images.size());
+            _images.add(storedImage.getEncodedImage());
+        }
+    }
+
+    /**
+     * Writes the index of the specified string within the string table
+     *
+     * @param writer The binary writer
+     * @param value The string value
+     *
+     * @throws IOException If the string could not be written
+     */
+    private void writeString(BinaryWriter writer, String value) throws IOException {
+        writer.writeVarInt(_stringIndices.get(value == null ? "" : value));
+    }
+
+    /**
+     * Writes the specified tile
+     *
+     * @param writer The binary writer
+     * @param tileMapModel The tile map that owns the tile
+     * @param tileModel The tile to write
+     *
+     * @throws IOException If the tile could not be written
+     */
+    private void writeTile(BinaryWriter writer, TileMapModel tileMapModel, TileModel tileModel) throws IOException {
+
+        boolean hasSize = tileModel.getWidth() != tileMapModel.getWidth() || tileModel.getHeight() != tileMapModel.getHeight();
+        Integer image = _imageIndices.get(tileModel.getStoredImage());
+
+        writer.writeUUID(tileModel.getUUID());
+        writer.writeByte((hasSize ? FLAG_SIZE : 0) | (image != null ? FLAG_IMAGE : 0));
+        writeString(writer, tileModel.getName());
+        writeString(writer, tileModel.getFriendlyName());
+
+        if(hasSize) {
+            writer.writeVarInt(tileModel.getWidth());
+            writer.writeVarInt(tileModel.getHeight());
+        }
+
+        List<UUID> layers = tileModel.getLayers();
+        writer.writeVarInt(layers.size());
+        for(UUID layer : layers) {
+            writer.writeVarInt(_uuidIndices.get(layer));
+        }
+
+        if(image != null) {
+            writer.writeVarInt(image);
+        }
+    }
+
+    /**
+     * Reads a tile
+     *
+     * @param reader The binary reader
+     * @param tileMapModel The tile map that owns the tile
+     *
+     * @return The tile that was read
+     *
+     * @throws IOException If the tile could not be read
+     */
+    private TileModel readTile(BinaryReader reader, TileMapModel tileMapModel) throws IOException {
+
+        TileModel tileModel = new TileModel();
+        tileModel.setUUID(reader.readUUID());
+
+        int flags = reader.readByte();
+        tileModel.setName(_strings.get(reader.readVarInt()));
+        tileModel.setFriendlyName(_strings.get(reader.readVarInt()));
+
+        if((flags & FLAG_SIZE) == FLAG_SIZE) {
+            tileModel.setWidth(reader.readVarInt());
+            tileModel.setHeight(reader.readVarInt());
+        }
+        else {
+            tileModel.setWidth(tileMapModel.getWidth());
+            tileModel.setHeight(tileMapModel.getHeight());
+        }
+
+        List<UUID> layers = new ArrayList<>();
+        for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+            layers.add(_uuids.get(reader.readVarInt()));
+        }
+        tileModel.updateLayers(layers);
+
+        if((flags & FLAG_IMAGE) == FLAG_IMAGE) {
+            tileModel.setImageData(_version == 1 ? reader.readBytes() : _images.get(reader.readVarInt()));
+        }
+
+        return tileModel;
+    }
+
+    /**
+     * Verifies that the specified index is within a table of the specified size
+     *
+     * @param index The index
+     * @param size The size of the table
+     *
+     * @throws IOException If the index is not within the table
+     */
+    private static void verifyIndex(int index, int size) throws IOException {
+        if(index < 0 || index >= size) {
+            throw new IOException("Index " + index + " is not within a table of " + size + " entries");
+        }
+    }
+
+    @Override protected boolean validate(InputStream stream) {
+        try {
+            BinaryReader reader = new BinaryReader(stream);
+            if(!Arrays.equals(reader.readRaw(MAGIC.length), MAGIC)) {
+                Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", it is not a binary project file");
+                return false;
+            }
+
+            int version = reader.readVarInt();
+            if(version > VERSION) {
+                Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", version " + version + " is not supported");
+                return false;
+            }
+
+            // Only the sizes of the tables are kept, the strings and images themselves are skipped
+            int strings = reader.readVarInt();
+            for(int i = 0; i < strings; ++i) {
+                reader.skipBytes();
+            }
+
+            int uuids = reader.readVarInt();
+            for(int i = 0; i < uuids; ++i) {
+                reader.readUUID();
+            }
+
+            int images = 0;
+            if(version > 1) {
+                images = reader.readVarInt();
+                for(int i = 0; i < images; ++i) {
+                    reader.skipBytes();
+                }
+            }
+
+            if(reader.readByte() != 0) {
+                reader.readUUID();
+                verifyIndex(reader.readVarInt(), strings);
+            }
+
+            for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+                verifyIndex(reader.readVarInt(), uuids);
+                verifyIndex(reader.readVarInt(), strings);
+            }
+
+            for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+                reader.readUUID();
+                verifyIndex(reader.readVarInt(), strings);
+                for(int j = 0; j < 4; ++j) {
+                    reader.readVarInt();
+                }
+                reader.readSignedVarInt();
+                reader.readSignedVarInt();
+
+                for(int j = 0, tiles = reader.readVarInt(); j < tiles; ++j) {
+                    reader.readUUID();
+                    int flags = reader.readByte();
+                    verifyIndex(reader.readVarInt(), strings);
+                    verifyIndex(reader.readVarInt(), strings);
+                    if((flags & FLAG_SIZE) == FLAG_SIZE) {
+                        reader.readVarInt();
+                        reader.readVarInt();
+                    }
+                    for(int k = 0, layers = reader.readVarInt(); k < layers; ++k) {
+                        verifyIndex(reader.readVarInt(), uuids);
+                    }
+                    if((flags & FLAG_IMAGE) == FLAG_IMAGE) {
+                        if(version == 1) {
+                            reader.skipBytes();
+                        }
+                        else {
+                            verifyIndex(reader.readVarInt(), images);
+                        }
+                    }
+                }
+            }
+
+            // Anything after the tile maps means that the file is not what was written
+            if(stream.read() != -1) {
+                throw new IOException("Unexpected content after the last tile map");
+            }
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override protected boolean deserialize(InputStream stream, Consumer consumer) {
+
+        _strings.clear();
+        _uuids.clear();
+        _images.clear();
+
+        try {
+            BinaryReader reader = new BinaryReader(stream);
+            if(!Arrays.equals(reader.readRaw(MAGIC.length), MAGIC)) {
+                Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", it is not a binary project file");
+                return false;
+            }
+
+            _version = reader.readVarInt();
+            if(_version > VERSION) {
+                Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", version " + _version + " is not supported");
+                return false;
+            }
+
+            for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+                _strings.add(reader.readString());
+            }
+
+            for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+                _uuids.add(reader.readUUID());
+            }
+
+            if(_version > 1) {
+                for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+                    _images.add(reader.readBytes());
+                }
+            }
+
+            // The models are always written in the order that they need to be
+            // built: the project, its layers and then its tile maps
+            if(reader.readByte() != 0) {
+                ProjectModel projectModel = new ProjectModel();
+                projectModel.setUUID(reader.readUUID());
+                projectModel.setProjectName(_strings.get(reader.readVarInt()));
+                consumer.accept(projectModel);
+            }
+
+            for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+                TileLayerModel tileLayerModel = new TileLayerModel();
+                tileLayerModel.setUUID(_uuids.get(reader.readVarInt()));
+                tileLayerModel.setLayerName(_strings.get(reader.readVarInt()));
+                consumer.accept(tileLayerModel);
+            }
+
+            for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+                TileMapModel tileMapModel = new TileMapModel();
+                tileMapModel.setUUID(reader.readUUID());
+                tileMapModel.setName(_strings.get(reader.readVarInt()));
+                tileMapModel.setRows(reader.readVarInt());
+                tileMapModel.setColumns(reader.readVarInt());
+                tileMapModel.setWidth(reader.readVarInt());
+                tileMapModel.setHeight(reader.readVarInt());
+                tileMapModel.setCoordinate(reader.readSignedVarInt(), reader.readSignedVarInt());
+
+                for(int j = 0, tiles = reader.readVarInt(); j < tiles; ++j) {
+                    tileMapModel.getTiles().add(readTile(reader, tileMapModel));
+                }
+
+                consumer.accept(tileMapModel);
+            }
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Serializes the contents of this file system into the specified stream
+     *
+     * @param stream The stream to write into, this stream is not closed
+     *
+     * @throws IOException If the contents could not be written
+     */
+    public void serialize(OutputStream stream) throws IOException {
+
+        List<ProjectModel> projectModels = getData(ProjectModel.class);
+        List<TileLayerModel> tileLayerModels = getData(TileLayerModel.class);
+        List<TileMapModel> tileMapModels = getData(TileMapModel.class);
+
+        // Build the string and identifier tables before anything is written
+        _strings.clear();
+        _stringIndices.clear();
+        _uuids.clear();
+        _uuidIndices.clear();
+        _images.clear();
+        _imageIndices.clear();
+
+        for(ProjectModel projectModel : projectModels) {
+            addString(projectModel.getName());
+        }
+        for(TileLayerModel tileLayerModel : tileLayerModels) {
+            addString(tileLayerModel.getName());
+            addUUID(tileLayerModel.getUUID());
+        }
+        for(TileMapModel tileMapModel : tileMapModels) {
+            addString(tileMapModel.getName());
+            for(TileModel tileModel : tileMapModel.getTiles()) {
+                addString(tileModel.getName());
+                addString(tileModel.getFriendlyName());
+                tileModel.getLayers().forEach(this::addUUID);
+                addImage(tileModel);
+            }
+        }
+
+        BinaryWriter writer = new BinaryWriter(stream);
+
+        writer.writeRaw(MAGIC);
+        writer.writeVarInt(VERSION);
+
+        writer.writeVarInt(_strings.size());
+        for(String value : _strings) {
+            writer.writeString(value);
+        }
+
+        writer.writeVarInt(_uuids.size());
+        for(UUID uuid : _uuids) {
+            writer.writeUUID(uuid);
+        }
+
+        writer.writeVarInt(_images.size());
+        for(byte[] image : _images) {
+            writer.writeBytes(image);
+        }
+
+        // There is only ever a single project
+        writer.writeByte(projectModels.isEmpty() ? 0 : 1);
+        if(!projectModels.isEmpty()) {
+            writer.writeUUID(projectModels.get(0).getUUID());
+            writeString(writer, projectModels.get(0).getName());
+        }
+
+        writer.writeVarInt(tileLayerModels.size());
+        for(TileLayerModel tileLayerModel : tileLayerModels) {
+            writer.writeVarInt(_uuidIndices.get(tileLayerModel.getUUID()));
+            writeString(writer, tileLayerModel.getName());
+        }
+
+        writer.writeVarInt(tileMapModels.size());
+        for(TileMapModel tileMapModel : tileMapModels) {
+            writer.writeUUID(tileMapModel.getUUID());
+            writeString(writer, tileMapModel.getName());
+            writer.writeVarInt(tileMapModel.getRows());
+            writer.writeVarInt(tileMapModel.getColumns());
+            writer.writeVarInt(tileMapModel.getWidth());
+            writer.writeVarInt(tileMapModel.getHeight());
+            writer.writeSignedVarInt(tileMapModel.getXCoordinate());
+            writer.writeSignedVarInt(tileMapModel.getYCoordinate());
+
+            writer.writeVarInt(tileMapModel.getTiles().size());
+            for(TileModel tileModel : tileMapModel.getTiles()) {
+                writeTile(writer, tileMapModel, tileModel);
+            }
+        }
+
+        writer.flush();
+    }
+
+    @Override public String serialize() {
+        try(OutputStream stream = openOutputStream()) {
+            serialize(stream);
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+            return null;
+        }
+
+        return _file.getAbsolutePath();
+    }
+}
\ No newline at end of file
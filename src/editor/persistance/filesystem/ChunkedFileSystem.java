@@ -0,0 +1,887 @@
+package editor.persistance.filesystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import framework.communication.external.filesystem.AbstractFileSystem;
+import framework.communication.internal.persistance.ISerializable;
+import framework.utils.io.BinaryReader;
+import framework.utils.io.BinaryWriter;
+import framework.utils.logging.Tracelog;
+
+import editor.models.ProjectModel;
+import editor.models.TileLayerModel;
+import editor.models.TileMapModel;
+
+/**
+ * This file system persists a project as a container of chunks.  The project and its layers are held within
+ * a single chunk, and every tile map along with its tiles is held within its own chunk.  Each chunk is encoded
+ * using the binary project format, and an index at the end of the file lists where every chunk is located.
+ *
+ * The layout of the file is as follows
+ *
+ *   header  : magic, version
+ *   chunks  : [binary project]...
+ *   index   : count, [kind, uuid, name, offset, length]...
+ *   trailer : index offset, magic
+ *
+ * Because of the index, a subset of the tile maps can be read without reading the rest of the file, and
+ * saving only appends the chunks that have changed.  Tile maps whose revision has not changed since they were
+ * last written into the same file are not even encoded, so saving scales with what was edited.
+ *
+ * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
+ */
+public final class ChunkedFileSystem extends AbstractFileSystem {
+
+    /**
+     * The extension used for chunked project files
+     */
+    public static final String EXTENSION_CHUNKED = ".mpak";
+
+    /**
+     * The version of the chunked format written by this file system
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The bytes that every chunked project file starts and ends with
+     */
+    private static final byte[] MAGIC = { 'M', 'P', 'A', 'K' };
+
+    /**
+     * The size of the header at the start of the file, the version is always written as a single byte
+     */
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+
+    /**
+     * The size of the trailer at the end of the file
+     */
+    private static final int TRAILER_SIZE = Long.BYTES + MAGIC.length;
+
+    /**
+     * The kind of chunk holding the project and its layers
+     */
+    private static final int KIND_PROJECT = 0;
+
+    /**
+     * The kind of chunk holding a tile map and its tiles
+     */
+    private static final int KIND_TILEMAP = 1;
+
+    /**
+     * The ratio of unreferenced bytes to referenced bytes above which the file is rewritten instead of appended to
+     */
+    private static final double COMPACTION_RATIO = 0.5;
+
+    /**
+     * The sessions of the projects that were read from or written to a chunked file, by the identifier of the project
+     */
+    private static final Map<UUID, Session> _sessions = new ConcurrentHashMap<>();
+
+    /**
+     * The tile maps to read, null if all the tile maps should be read
+     */
+    private Set<UUID> _selection;
+
+    /**
+     * Describes a single chunk within the index of a chunked file
+     *
+     * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
+     */
+    public static final class Chunk {
+
+        /**
+         * The kind of chunk
+         */
+        private final int _kind;
+
+        /**
+         * The identifier of the model held by the chunk
+         */
+        private final UUID _uuid;
+
+        /**
+         * The name of the model held by the chunk
+         */
+        private final String _name;
+
+        /**
+         * The position of the chunk within the file
+         */
+        private final long _offset;
+
+        /**
+         * The number of bytes of the chunk
+         */
+        private final int _length;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param kind The kind of chunk
+         * @param uuid The identifier of the model held by the chunk
+         * @param name The name of the model held by the chunk
+         * @param offset The position of the chunk within the file
+         * @param length The number of bytes of the chunk
+         */
+        private Chunk(int kind, UUID uuid, String name, long offset, int length) {
+            _kind = kind;
+            _uuid = uuid;
+            _name = name;
+            _offset = offset;
+            _length = length;
+        }
+
+        /**
+         * Gets the identifier of the model held by the chunk
+         *
+         * @return The identifier of the model
+         */
+        public UUID getUUID() {
+            return _uuid;
+        }
+
+        /**
+         * Gets the name of the model held by the chunk
+         *
+         * @return The name of the model
+         */
+        public String getName() {
+            return _name;
+        }
+
+        /**
+         * Indicates if this chunk holds a tile map
+         *
+         * @return TRUE if this chunk holds a tile map, FALSE otherwise
+         */
+        public boolean isTileMap() {
+            return _kind == KIND_TILEMAP;
+        }
+
+        @Override public String toString() {
+            return _name;
+        }
+    }
+
+    /**
+     * The state of a project that was read from or written to a chunked file.  A session is kept for every
+     * project by its identifier, so that saving the project again only writes what has changed and carries over
+     * the tile maps that were never read
+     *
+     * Note: A session is never modified, a new session replaces it every time that the project is read or written
+     *
+     * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
+     */
+    private static final class Session {
+
+        /**
+         * The chunked file that the project was last read from or written to
+         */
+        private final File _file;
+
+        /**
+         * The tile maps of the project that were not read, they are carried over when the project is saved
+         */
+        private final Set<UUID> _unloadedTileMaps;
+
+        /**
+         * The revisions of the tile maps that were last written into the file
+         */
+        private final Map<UUID, SavedTileMap> _savedTileMaps;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param file The chunked file that the project was last read from or written to
+         * @param unloadedTileMaps The tile maps of the project that were not read
+         * @param savedTileMaps The revisions of the tile maps that were last written into the file
+         */
+        private Session(File file, Set<UUID> unloadedTileMaps, Map<UUID, SavedTileMap> savedTileMaps) {
+            _file = file;
+            _unloadedTileMaps = unloadedTileMaps;
+            _savedTileMaps = savedTileMaps;
+        }
+
+        /**
+         * Indicates if some of the tile maps of the project were not read from the file
+         *
+         * @return TRUE if some tile maps were not read, FALSE otherwise
+         */
+        public boolean hasUnloadedTileMaps() {
+            return !_unloadedTileMaps.isEmpty();
+        }
+    }
+
+    /**
+     * The revision of a tile map at the time that it was written
+     */
+    private static final class SavedTileMap {
+
+        /**
+         * The tile map that was written
+         */
+        private final WeakReference<TileMapModel> _tileMapModel;
+
+        /**
+         * The identifier of the tile map that was written
+         */
+        private final UUID _uuid;
+
+        /**
+         * The revision of the tile map when it was written
+         */
+        private final long _revision;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param tileMapModel The tile map that was written
+         * @param revision The revision of the tile map when it was written
+         */
+        private SavedTileMap(TileMapModel tileMapModel, long revision) {
+            _tileMapModel = new WeakReference<>(tileMapModel);
+            _uuid = tileMapModel.getUUID();
+            _revision = revision;
+        }
+    }
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param file The path associated to this file system
+     */
+    public ChunkedFileSystem(File file) {
+        super(file);
+    }
+
+    /**
+     * Indicates if the specified file is a chunked project file
+     *
+     * @param file The file to verify
+     *
+     * @return TRUE if the file starts with the chunked header, FALSE otherwise
+     */
+    public static boolean isChunked(File file) {
+        try(DataInputStream stream = new DataInputStream(new FileInputStream(file))) {
+            byte[] magic = new byte[MAGIC.length];
+            stream.readFully(magic);
+            return Arrays.equals(magic, MAGIC);
+        }
+        catch(Exception exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the index of the specified file
+     *
+     * @param file The random access file
+     *
+     * @return The list of chunks within the file
+     *
+     * @throws IOException If the index could not be read
+     */
+    private static List<Chunk> readIndex(RandomAccessFile file) throws IOException {
+        return readIndex(file, findTrailer(file));
+    }
+
+    /**
+     * Finds the position of the last valid trailer of the specified file.  The trailer is normally at the end of
+     * the file, but when a save was interrupted the file can end with a partially written index, in which case
+     * the trailer of the index that was there before the save is used
+     *
+     * @param file The random access file
+     *
+     * @return The position of the trailer
+     *
+     * @throws IOException If no valid trailer could be found
+     */
+    private static long findTrailer(RandomAccessFile file) throws IOException {
+
+        byte[] block = new byte[1 << 16];
+        long end = file.length();
+        while(end - HEADER_SIZE >= TRAILER_SIZE) {
+            long start = Math.max(HEADER_SIZE, end - block.length);
+            int size = (int)(end - start);
+            file.seek(start);
+            file.readFully(block, 0, size);
+
+            // Search backwards for the magic that ends a trailer, and verify that it leads to an index
+            for(int i = size - MAGIC.length; i >= 0; --i) {
+                long trailer = start + i - Long.BYTES;
+                if(trailer >= HEADER_SIZE
+                    && Arrays.equals(Arrays.copyOfRange(block, i, i + MAGIC.length), MAGIC)
+                    && readIndex(file, trailer) != null) {
+                    return trailer;
+                }
+            }
+
+            if(start == HEADER_SIZE) {
+                break;
+            }
+
+            // Overlap the blocks so that a magic spanning two blocks is still found
+            end = start + MAGIC.length - 1;
+        }
+
+        throw new IOException("The index of the chunked project file could not be found");
+    }
+
+    /**
+     * Reads the index referenced by the trailer at the specified position of the specified file
+     *
+     * @param file The random access file
+     * @param trailer The position of the trailer
+     *
+     * @return The list of chunks within the file, or null if the trailer does not reference a valid index
+     *
+     * @throws IOException If the file could not be read
+     */
+    private static List<Chunk> readIndex(RandomAccessFile file, long trailer) throws IOException {
+
+        file.seek(trailer);
+        long indexOffset = file.readLong();
+        if(indexOffset < HEADER_SIZE || indexOffset > trailer) {
+            return null;
+        }
+
+        byte[] bytes = new byte[(int)(trailer - indexOffset)];
+        file.seek(indexOffset);
+        file.readFully(bytes);
+
+        ByteArrayInputStream stream = new ByteArrayInputStream(bytes);
+        BinaryReader reader = new BinaryReader(stream);
+        List<Chunk> chunks = new ArrayList<>();
+        try {
+            for(int i = 0, size = reader.readVarInt(); i < size; ++i) {
+                Chunk chunk = new Chunk(reader.readByte(), reader.readUUID(), reader.readString(), reader.readLong(), reader.readVarInt());
+                if(chunk._offset < HEADER_SIZE || chunk._length < 0 || chunk._offset + chunk._length > indexOffset) {
+                    return null;
+                }
+                chunks.add(chunk);
+            }
+        }
+        catch(IOException exception) {
+            return null;
+        }
+
+        // The index must end exactly where the trailer starts
+        return stream.available() == 0 ? chunks : null;
+    }
+
+    /**
+     * Reads the bytes of the specified chunk
+     *
+     * @param file The random access file
+     * @param chunk The chunk to read
+     *
+     * @return The bytes of the chunk
+     *
+     * @throws IOException If the chunk could not be read
+     */
+    private static byte[] readChunk(RandomAccessFile file, Chunk chunk) throws IOException {
+        byte[] bytes = new byte[chunk._length];
+        file.seek(chunk._offset);
+        file.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Gets the list of tile maps held within the file associated to this file system
+     *
+     * @return The list of tile map chunks
+     *
+     * @throws IOException If the index could not be read
+     */
+    public List<Chunk> getTileMaps() throws IOException {
+        List<Chunk> tileMaps = new ArrayList<>();
+        try(RandomAccessFile file = new RandomAccessFile(_file, "r")) {
+            for(Chunk chunk : readIndex(file)) {
+                if(chunk.isTileMap()) {
+                    tileMaps.add(chunk);
+                }
+            }
+        }
+
+        return tileMaps;
+    }
+
+    /**
+     * Sets the tile maps that should be read, the tile maps that are not read are kept within
+     * the file the next time that the project is saved
+     *
+     * @param tileMaps The identifiers of the tile maps to read
+     */
+    public void setSelection(Collection<UUID> tileMaps) {
+        _selection = new HashSet<>(tileMaps);
+    }
+
+    /**
+     * Encodes the specified models into a chunk
+     *
+     * @param models The models to encode
+     *
+     * @return The bytes of the chunk
+     *
+     * @throws IOException If the models could not be encoded
+     */
+    private static byte[] encodeChunk(List<?> models) throws IOException {
+        BinaryFileSystem fileSystem = new BinaryFileSystem();
+        for(Object model : models) {
+            fileSystem.write((ISerializable) model);
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        fileSystem.serialize(stream);
+        return stream.toByteArray();
+    }
+
+    /**
+     * Indicates if the specified tile map has not changed since it was last written into the file of the specified session
+     *
+     * @param session The session of the project
+     * @param tileMapModel The tile map
+     * @param revision The current revision of the tile map
+     *
+     * @return TRUE if the tile map has not changed, FALSE otherwise
+     */
+    private static boolean isSaved(Session session, TileMapModel tileMapModel, long revision) {
+        SavedTileMap savedTileMap = session._savedTileMaps.get(tileMapModel.getUUID());
+        return savedTileMap != null && savedTileMap._tileMapModel.get() == tileMapModel && savedTileMap._revision == revision;
+    }
+
+    @Override public boolean validate() {
+        try(RandomAccessFile file = new RandomAccessFile(_file, "r")) {
+
+            byte[] magic = new byte[MAGIC.length];
+            file.readFully(magic);
+            if(!Arrays.equals(magic, MAGIC)) {
+                Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", it is not a chunked project file");
+                return false;
+            }
+
+            int version = file.readUnsignedByte();
+            if(version > VERSION) {
+                Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", version " + version + " is not supported");
+                return false;
+            }
+
+            // The trailer and the index locate every chunk within the file, then the structure of the
+            // chunks that are going to be read is verified without building any of their models
+            for(Chunk chunk : readIndex(file)) {
+                if(chunk.isTileMap() && _selection != null && !_selection.contains(chunk._uuid)) {
+                    continue;
+                }
+
+                if(!new BinaryFileSystem().validate(new ByteArrayInputStream(readChunk(file, chunk)))) {
+                    Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", the chunk of " + chunk._name + " is corrupt");
+                    return false;
+                }
+            }
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override public boolean deserialize(Consumer consumer) {
+        try(RandomAccessFile file = new RandomAccessFile(_file, "r")) {
+
+            byte[] magic = new byte[MAGIC.length];
+            file.readFully(magic);
+            if(!Arrays.equals(magic, MAGIC)) {
+                Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", it is not a chunked project file");
+                return false;
+            }
+
+            int version = file.readUnsignedByte();
+            if(version > VERSION) {
+                Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", version " + version + " is not supported");
+                return false;
+            }
+
+            List<Chunk> chunks = readIndex(file);
+            Set<UUID> unloadedTileMaps = new HashSet<>();
+            for(Chunk chunk : chunks) {
+                if(chunk.isTileMap() && _selection != null && !_selection.contains(chunk._uuid)) {
+                    unloadedTileMaps.add(chunk._uuid);
+                }
+            }
+
+            // The session remembers which tile maps were left within the file so that they are not lost on the
+            // next save.  The session is kept before the project is consumed, as the project can be copied right away
+            Session session = new Session(_file, unloadedTileMaps, new HashMap<>());
+
+            // The project chunk is always first within the index, followed by the tile maps.  Only
+            // a single chunk is ever held in memory at once
+            for(Chunk chunk : chunks) {
+                if(unloadedTileMaps.contains(chunk._uuid)) {
+                    continue;
+                }
+
+                InputStream stream = new ByteArrayInputStream(readChunk(file, chunk));
+                if(!new BinaryFileSystem().deserialize(stream, model -> {
+                    if(model instanceof ProjectModel) {
+                        _sessions.put(((ProjectModel) model).getUUID(), session);
+                    }
+                    consumer.accept(model);
+                })) {
+                    return false;
+                }
+            }
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes the session of the specified project, use this when the project is read from a file that is not chunked
+     *
+     * @param projectModel The project
+     */
+    public static void removeSession(ProjectModel projectModel) {
+        _sessions.remove(projectModel.getUUID());
+    }
+
+    /**
+     * Reads the tile maps of the specified project that were not read from its chunked file
+     *
+     * Note: Use this before the project is written into a file system that cannot carry over the tile maps
+     *       that were not read, otherwise they would be lost
+     *
+     * @param projectModel The project
+     * @param consumer The consumer of the tile maps
+     *
+     * @return TRUE if all the tile maps that were not read have been read, FALSE otherwise
+     */
+    public static boolean deserializeUnloadedTileMaps(ProjectModel projectModel, Consumer<TileMapModel> consumer) {
+        Session session = _sessions.get(projectModel.getUUID());
+        if(session == null || !session.hasUnloadedTileMaps()) {
+            return true;
+        }
+
+        if(!session._file.isFile()) {
+            Tracelog.log(Level.SEVERE, true, "Cannot read the tile maps that were not opened, " + session._file + " no longer exists");
+            return false;
+        }
+
+        // Only the chunks of the tile maps are read, reading the project again would replace its session
+        Set<UUID> tileMaps = new HashSet<>();
+        try(RandomAccessFile file = new RandomAccessFile(session._file, "r")) {
+            for(Chunk chunk : readIndex(file)) {
+                if(chunk.isTileMap() && session._unloadedTileMaps.contains(chunk._uuid) && !new BinaryFileSystem().deserialize(new ByteArrayInputStream(readChunk(file, chunk)), model -> {
+                    if(model instanceof TileMapModel) {
+                        tileMaps.add(((TileMapModel) model).getUUID());
+                        consumer.accept((TileMapModel) model);
+                    }
+                })) {
+                    return false;
+                }
+            }
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+            return false;
+        }
+
+        if(!tileMaps.containsAll(session._unloadedTileMaps)) {
+            Tracelog.log(Level.SEVERE, true, "Cannot read the tile maps that were not opened, they are no longer within " + session._file);
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override protected boolean deserialize(InputStream stream, Consumer consumer) {
+        Tracelog.log(Level.SEVERE, true, "Cannot read " + _file + ", chunked project files can only be read from a file");
+        return false;
+    }
+
+    @Override public String serialize() {
+
+        List<ProjectModel> projectModels = getData(ProjectModel.class);
+        List<TileLayerModel> tileLayerModels = getData(TileLayerModel.class);
+        List<TileMapModel> tileMapModels = getData(TileMapModel.class);
+
+        try {
+            // Encode the project and every tile map into its own chunk
+            List<Chunk> chunks = new ArrayList<>();
+            Map<Chunk, byte[]> encodedChunks = new HashMap<>();
+
+            List<Object> project = new ArrayList<>(projectModels);
+            project.addAll(tileLayerModels);
+            Chunk projectChunk = new Chunk(KIND_PROJECT, projectModels.isEmpty() ? new UUID(0, 0) : projectModels.get(0).getUUID(), projectModels.isEmpty() ? "" : projectModels.get(0).getName(), 0, 0);
+            chunks.add(projectChunk);
+            encodedChunks.put(projectChunk, encodeChunk(project));
+
+            // Tile maps that have not changed since they were last written into this file are
+            // not encoded again, their chunk is referenced from where it already is
+            Session session = projectModels.isEmpty() ? null : _sessions.get(projectModels.get(0).getUUID());
+            Map<UUID, Chunk> savedChunks = new HashMap<>();
+            if(session != null && _file.equals(session._file) && _file.isFile() && isChunked(_file)) {
+                try(RandomAccessFile file = new RandomAccessFile(_file, "r")) {
+                    for(Chunk chunk : readIndex(file)) {
+                        savedChunks.put(chunk._uuid, chunk);
+                    }
+                }
+            }
+
+            Set<UUID> tileMaps = new HashSet<>();
+            List<SavedTileMap> savedTileMaps = new ArrayList<>();
+            Map<Chunk, File> carriedChunks = new HashMap<>();
+            for(TileMapModel tileMapModel : tileMapModels) {
+                long revision = tileMapModel.getContentRevision();
+                savedTileMaps.add(new SavedTileMap(tileMapModel, revision));
+                tileMaps.add(tileMapModel.getUUID());
+
+                Chunk savedChunk = savedChunks.get(tileMapModel.getUUID());
+                if(savedChunk != null && isSaved(session, tileMapModel, revision)) {
+                    chunks.add(savedChunk);
+                    carriedChunks.put(savedChunk, _file);
+                }
+                else {
+                    Chunk chunk = new Chunk(KIND_TILEMAP, tileMapModel.getUUID(), tileMapModel.getName(), 0, 0);
+                    chunks.add(chunk);
+                    encodedChunks.put(chunk, encodeChunk(Arrays.asList(tileMapModel)));
+                }
+            }
+
+            Tracelog.log(Level.INFO, true, "Saving " + _file + ", " + (encodedChunks.size() - 1) + " of " + tileMapModels.size() + " tile maps have changed");
+
+            // The tile maps that were never read are carried over from the file they were read from
+            Set<UUID> unloadedTileMaps = new HashSet<>();
+            if(session != null && session.hasUnloadedTileMaps() && session._file.isFile()) {
+                try(RandomAccessFile file = new RandomAccessFile(session._file, "r")) {
+                    for(Chunk chunk : readIndex(file)) {
+                        if(chunk.isTileMap() && session._unloadedTileMaps.contains(chunk._uuid) && !tileMaps.contains(chunk._uuid)) {
+                            chunks.add(chunk);
+                            carriedChunks.put(chunk, session._file);
+                            unloadedTileMaps.add(chunk._uuid);
+                        }
+                    }
+                }
+            }
+
+            if(!(_file.isFile() && isChunked(_file) && append(chunks, encodedChunks, carriedChunks))) {
+                rewrite(chunks, encodedChunks, carriedChunks);
+            }
+
+            // The project now belongs to this file, the tile maps that were carried over are still not read
+            Map<UUID, SavedTileMap> sessionTileMaps = new HashMap<>();
+            if(session != null && _file.equals(session._file)) {
+                sessionTileMaps.putAll(session._savedTileMaps);
+            }
+            for(SavedTileMap savedTileMap : savedTileMaps) {
+                sessionTileMaps.put(savedTileMap._uuid, savedTileMap);
+            }
+            if(!projectModels.isEmpty()) {
+                _sessions.put(projectModels.get(0).getUUID(), new Session(_file, unloadedTileMaps, sessionTileMaps));
+            }
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+            return null;
+        }
+
+        return _file.getAbsolutePath();
+    }
+
+    /**
+     * Appends the chunks that have changed into the existing file associated to this file system, the chunks
+     * that have not changed are referenced from where they already are
+     *
+     * @param chunks The chunks to write, in order
+     * @param encodedChunks The bytes of the chunks that have been encoded
+     * @param carriedChunks The chunks that are copied from an existing file
+     *
+     * @return TRUE if the chunks were appended, FALSE if the file should be rewritten instead
+     *
+     * @throws IOException If the file could not be written
+     */
+    private boolean append(List<Chunk> chunks, Map<Chunk, byte[]> encodedChunks, Map<Chunk, File> carriedChunks) throws IOException {
+
+        try(RandomAccessFile file = new RandomAccessFile(_file, "rw")) {
+
+            long trailer = findTrailer(file);
+            long length = trailer + TRAILER_SIZE;
+
+            Map<UUID, Chunk> existingChunks = new HashMap<>();
+            for(Chunk chunk : readIndex(file, trailer)) {
+                existingChunks.put(chunk._uuid, chunk);
+            }
+
+            // Find which of the chunks are already within the file, as-is
+            List<Chunk> index = new ArrayList<>();
+            long referencedBytes = 0;
+            long appendedBytes = 0;
+            for(Chunk chunk : chunks) {
+                Chunk existingChunk = existingChunks.get(chunk._uuid);
+                byte[] bytes = encodedChunks.get(chunk);
+                boolean unchanged = existingChunk != null && (bytes == null
+                    ? _file.getCanonicalFile().equals(carriedChunks.get(chunk).getCanonicalFile()) && existingChunk._offset == chunk._offset
+                    : existingChunk._length == bytes.length && Arrays.equals(readChunk(file, existingChunk), bytes));
+
+                if(unchanged) {
+                    index.add(new Chunk(chunk._kind, chunk._uuid, chunk._name, existingChunk._offset, existingChunk._length));
+                    referencedBytes += existingChunk._length;
+                }
+                else {
+                    index.add(null);
+                    appendedBytes += bytes == null ? chunk._length : bytes.length;
+                }
+            }
+
+            // When too much of the file is no longer referenced, rewrite it instead.  The previous
+            // indexes are never referenced again once a newer index has been written
+            long unreferencedBytes = length - HEADER_SIZE - referencedBytes;
+            if(unreferencedBytes > COMPACTION_RATIO * (referencedBytes + appendedBytes)) {
+                return false;
+            }
+
+            // The chunks and the new index are written after the previous index, which is left untouched
+            // so that the file remains readable until the new trailer has been written
+            try {
+                file.seek(length);
+                for(int i = 0; i < chunks.size(); ++i) {
+                    if(index.get(i) == null) {
+                        Chunk chunk = chunks.get(i);
+                        byte[] bytes = getChunkBytes(chunk, encodedChunks, carriedChunks);
+                        index.set(i, new Chunk(chunk._kind, chunk._uuid, chunk._name, file.getFilePointer(), bytes.length));
+                        file.write(bytes);
+                    }
+                }
+
+                writeIndex(file, index);
+                file.setLength(file.getFilePointer());
+            }
+            catch(IOException exception) {
+                // Discard what was appended, the previous index becomes the last one again
+                Tracelog.log(Level.WARNING, true, "Could not append to " + _file + ", the file will be rewritten instead");
+                file.setLength(length);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Rewrites the entire file associated to this file system.  The file is written into a temporary file first
+     * and then moved over the file, so that the existing file is never left half written
+     *
+     * @param chunks The chunks to write, in order
+     * @param encodedChunks The bytes of the chunks that have been encoded
+     * @param carriedChunks The chunks that are copied from an existing file
+     *
+     * @throws IOException If the file could not be written
+     */
+    private void rewrite(List<Chunk> chunks, Map<Chunk, byte[]> encodedChunks, Map<Chunk, File> carriedChunks) throws IOException {
+
+        File temporaryFile = File.createTempFile(_file.getName(), ".tmp", _file.getAbsoluteFile().getParentFile());
+        try(RandomAccessFile file = new RandomAccessFile(temporaryFile, "rw")) {
+
+            file.setLength(0);
+            file.write(MAGIC);
+            file.writeByte(VERSION);
+
+            List<Chunk> index = new ArrayList<>();
+            for(Chunk chunk : chunks) {
+                byte[] bytes = getChunkBytes(chunk, encodedChunks, carriedChunks);
+                index.add(new Chunk(chunk._kind, chunk._uuid, chunk._name, file.getFilePointer(), bytes.length));
+                file.write(bytes);
+            }
+
+            writeIndex(file, index);
+        }
+        catch(IOException exception) {
+            temporaryFile.delete();
+            throw exception;
+        }
+
+        Files.move(temporaryFile.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Gets the bytes of the specified chunk, either from what has been encoded or from the file it is carried over from
+     *
+     * @param chunk The chunk
+     * @param encodedChunks The bytes of the chunks that have been encoded
+     * @param carriedChunks The chunks that are copied from an existing file
+     *
+     * @return The bytes of the chunk
+     *
+     * @throws IOException If the chunk could not be read
+     */
+    private static byte[] getChunkBytes(Chunk chunk, Map<Chunk, byte[]> encodedChunks, Map<Chunk, File> carriedChunks) throws IOException {
+        byte[] bytes = encodedChunks.get(chunk);
+        if(bytes == null) {
+            try(RandomAccessFile file = new RandomAccessFile(carriedChunks.get(chunk), "r")) {
+                bytes = readChunk(file, chunk);
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Writes the specified index and the trailer at the current position of the specified file.  The index is
+     * flushed to the disk before the trailer is written, so that a trailer never references an incomplete index
+     *
+     * @param file The random access file
+     * @param index The chunks of the index
+     *
+     * @throws IOException If the index could not be written
+     */
+    private static void writeIndex(RandomAccessFile file, List<Chunk> index) throws IOException {
+
+        long indexOffset = file.getFilePointer();
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BinaryWriter writer = new BinaryWriter(stream);
+        writer.writeVarInt(index.size());
+        for(Chunk chunk : index) {
+            writer.writeByte(chunk._kind);
+            writer.writeUUID(chunk._uuid);
+            writer.writeString(chunk._name);
+            writer.writeLong(chunk._offset);
+            writer.writeVarInt(chunk._length);
+        }
+        writer.flush();
+
+        file.write(stream.toByteArray());
+        file.getFD().sync();
+
+        file.writeLong(indexOffset);
+        file.write(MAGIC);
+        file.getFD().sync();
+    }
+}
\ No newline at end of file
@@ -1,19 +1,27 @@
 package editor.persistance.filesystem;
 
-import java.awt.Image;
-import java.awt.image.BufferedImage;
 import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
-import javax.imageio.ImageIO;
-
 import framework.communication.external.filesystem.AbstractFileSystem;
-import framework.utils.io.Paths;
+import framework.core.graphics.ImageStore.StoredImage;
+import framework.core.graphics.PngEncoder;
 import framework.utils.logging.Tracelog;
 
 import editor.models.TileMapModel;
 import editor.models.TileModel;
+import editor.persistance.ExportManifest;
 
 /**
  * Image file system for handling images
@@ -22,6 +30,65 @@ import editor.models.TileModel;
  */
 public final class ImageFileSystem extends AbstractFileSystem {
 
+    /**
+     * The number of workers that export the images
+     */
+    private static final int WORKERS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of images that are waiting for a worker, this bounds the memory used by the export
+     */
+    private static final int MAXIMUM_PENDING = WORKERS * 4;
+
+    /**
+     * The name of the manifest of the images exported into a directory
+     */
+    private static final String MANIFEST_NAME = "images" + ExportManifest.EXTENSION;
+
+    /**
+     * The listener that is notified every time that an image has been exported
+     */
+    private transient ProgressListener _progressListener;
+
+    /**
+     * Indicates if the export has been cancelled
+     */
+    private transient volatile boolean _isCancelled;
+
+    /**
+     * The encoder of the exported images, or null if the images are written as they are stored
+     */
+    private transient PngEncoder _pngEncoder;
+
+    /**
+     * The folders of the tile maps to export, relative to the directory, or null if no snapshot has been taken
+     */
+    private transient List<String> _folders;
+
+    /**
+     * The images to export by their path relative to the directory, or null if no snapshot has been taken
+     */
+    private transient Map<String, StoredImage> _images;
+
+    /**
+     * A listener of the progress of an export
+     * 
+     * @author {@literal Daniel Ricci {@literal <thedanny09@icloud.com>}}
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Called every time that an image has been exported
+         * 
+         * Note: This is called from the workers of the export, not from the event dispatch thread
+         * 
+         * @param completed The number of images that have been exported
+         * @param total The total number of images to export
+         */
+        void progressChanged(int completed, int total);
+    }
+
     /**
      * Constructs a new instance of this class type
      * 
@@ -31,6 +98,78 @@ public final class ImageFileSystem extends AbstractFileSystem {
         super(file);
     }
 
+    /**
+     * Sets the listener that is notified every time that an image has been exported
+     * 
+     * @param progressListener The progress listener
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        _progressListener = progressListener;
+    }
+
+    /**
+     * Sets the encoder of the exported images
+     * 
+     * @param pngEncoder The encoder, or null if the images should be written as they are stored
+     */
+    public void setPngEncoder(PngEncoder pngEncoder) {
+        _pngEncoder = pngEncoder;
+    }
+
+    /**
+     * Cancels the export, the images that are being written are completed and the remaining images are skipped
+     */
+    public void cancel() {
+        _isCancelled = true;
+    }
+
+    /**
+     * Indicates if the export has been cancelled
+     * 
+     * @return TRUE if the export has been cancelled, FALSE otherwise
+     */
+    public boolean isCancelled() {
+        return _isCancelled;
+    }
+
+    /**
+     * Takes a snapshot of the images of the tile maps that were written into this file system, along with the
+     * path of every image relative to the directory.  Serializing only reads the snapshot, so the export is not
+     * affected by the tile maps being modified while it runs
+     *
+     * Note: This must be called from the thread that modifies the tile maps, the event dispatch thread within the
+     *       editor, before serializing from another thread.  The images themselves are never modified, an edited
+     *       tile is given a new image
+     */
+    public void snapshot() {
+        List<String> folders = new ArrayList<>();
+        Map<String, StoredImage> images = new LinkedHashMap<>();
+        List<TileMapModel> tileMapModels = getData(TileMapModel.class);
+        for(TileMapModel tileMapModel : tileMapModels) {
+
+            String folder = new File(tileMapModel.getName()).getName();
+            folders.add(folder);
+
+            List<TileModel> tileModels = tileMapModel.getTiles();
+            for(int j = 0, jSize = tileModels.size(); j < jSize; ++j) {
+                StoredImage storedImage = tileModels.get(j).getStoredImage();
+                if(storedImage != null) {
+                    images.put(folder + File.separator + Integer.toString(j) + EXTENSION_PNG, storedImage);
+                }
+            }
+        }
+
+        _folders = folders;
+        _images = images;
+    }
+
+    /**
+     * Serializes the snapshot of the images of this file system, a snapshot is taken first if none was taken
+     *
+     * @see #snapshot()
+     *
+     * @return Always null, images are written into the directory associated to this file system
+     */
     @Override public String serialize() {
 
         // Ensure that the file provided is a directory
@@ -39,37 +178,115 @@ public final class ImageFileSystem extends AbstractFileSystem {
             return null;
         }
 
-        List<TileMapModel> tileMapModels = getData(TileMapModel.class);
-        for(int i = 0, iSize = tileMapModels.size(); i < iSize; ++i) {
+        if(_images == null) {
+            snapshot();
+        }
+        Map<String, StoredImage> exports = _images;
+        for(String folder : _folders) {
+            new File(_file, folder).mkdir();
+        }
 
-            File file = new File(_file.getAbsolutePath() + File.separator + tileMapModels.get(i).getName());
-            file.mkdir();
+        // The manifest of the previous export into this directory, images that are unchanged since are not written again
+        File manifestFile = new File(_file, MANIFEST_NAME);
+        ExportManifest previousManifest = ExportManifest.read(manifestFile);
+        ExportManifest manifest = new ExportManifest(manifestFile);
 
-            List<TileModel> tileModels = tileMapModels.get(i).getTiles();
-            for(int j = 0, jSize = tileModels.size(); j < jSize; ++j) {
-                Image image = tileModels.get(j).getImage();
-                if(image != null) {
-                    // If the image is not a buffered image then do not process the image, it needs to be of that type
-                    if(!(image instanceof BufferedImage)) {
-                        Tracelog.log(Level.SEVERE, true, "Error: Cannot export image for tilemap " + tileModels.get(j).toString() + ", wrong image format");
-                        continue;
-                    }
+        // Every image is encoded and written by a worker, when all the workers are busy and enough images are waiting
+        // the image is exported by this thread instead.  Tiles that share an image only encode it once
+        Map<String, byte[]> encodedImages = new ConcurrentHashMap<>();
+        AtomicInteger completed = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                WORKERS, 
+                WORKERS, 
+                0L, 
+                TimeUnit.MILLISECONDS, 
+                new ArrayBlockingQueue<>(MAXIMUM_PENDING),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ImageFileSystem");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+                );
 
-                    try {
-                        // Write the contents of the image to disk
-                        ImageIO.write(
-                                (BufferedImage)image,
-                                Paths.cleanExtensionMark(EXTENSION_PNG, true),
-                                new File(file.getPath() + File.separator + Integer.toString(j) + EXTENSION_PNG)
-                                );						
-                    }
-                    catch(Exception exception) {
-                        Tracelog.log(Level.SEVERE, true, exception);
-                    }
+        try {
+            for(Entry<String, StoredImage> export : exports.entrySet()) {
+                if(_isCancelled) {
+                    break;
                 }
+                executor.execute(() -> {
+                    if(!_isCancelled) {
+                        write(export.getKey(), export.getValue(), encodedImages, previousManifest, manifest);
+                        if(_progressListener != null) {
+                            _progressListener.progressChanged(completed.incrementAndGet(), exports.size());
+                        }
+                    }
+                });
+            }
+        }
+        finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch(InterruptedException exception) {
+                _isCancelled = true;
+                Thread.currentThread().interrupt();
             }
         }
 
+        // The manifest only holds the images that were exported, so that a cancelled export is resumed
+        // by the next export
+        manifest.write();
+
         return null;
     }
+
+    /**
+     * Writes the specified image into the specified file, unless the previous export already wrote
+     * the same image into that file
+     * 
+     * @param path The path of the file relative to the directory of this file system
+     * @param storedImage The image of a tile
+     * @param encodedImages The images encoded by the encoder of this file system, by the hash of their stored image
+     * @param previousManifest The manifest of the previous export
+     * @param manifest The manifest of this export, the image is added into it once written
+     */
+    private void write(String path, StoredImage storedImage, Map<String, byte[]> encodedImages, ExportManifest previousManifest, ExportManifest manifest) {
+        File file = new File(_file, path);
+
+        // The encoding is part of the hash so that every image is written again when the encoding changes
+        String hash = _pngEncoder != null ? storedImage.getHash() + ":" + _pngEncoder.getSettings() : storedImage.getHash();
+        ExportManifest.Entry previousEntry = previousManifest.get(path);
+        if(previousEntry != null && previousEntry.getHash().equals(hash) && previousEntry.isWritten(file)) {
+            manifest.put(path, previousEntry);
+            return;
+        }
+
+        try {
+            byte[] imageData;
+            if(_pngEncoder != null) {
+                imageData = encodedImages.get(storedImage.getHash());
+                if(imageData == null) {
+                    imageData = _pngEncoder.encode(storedImage.getImage());
+                    encodedImages.putIfAbsent(storedImage.getHash(), imageData);
+                }
+            }
+            else {
+                imageData = storedImage.getEncodedImage();
+            }
+
+            if(imageData == null) {
+                Tracelog.log(Level.SEVERE, true, "Error: Cannot export image " + path + ", wrong image format");
+                return;
+            }
+
+            // Write the contents of the image to disk
+            Files.write(file.toPath(), imageData);
+            manifest.put(path, new ExportManifest.Entry(hash, imageData.length));
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+        }
+    }
 }	
\ No newline at end of file
@@ -1,28 +1,48 @@
 package editor.persistance.filesystem;
 
 import java.awt.AlphaComposite;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import framework.api.IModel;
 import framework.communication.external.filesystem.AbstractFileSystem;
+import framework.core.graphics.AtlasCompositor;
+import framework.core.graphics.AtlasPacker;
+import framework.core.graphics.ImageStore.StoredImage;
+import framework.core.graphics.PngEncoder;
 import framework.utils.io.ClassGenerator;
 import framework.utils.io.JarPackage;
 import framework.utils.io.Javac;
+import framework.utils.io.LookupIndex;
+import framework.utils.io.PackedData;
 import framework.utils.io.Paths;
 import framework.utils.logging.Tracelog;
 
 import editor.models.TileLayerModel;
 import editor.models.TileMapModel;
 import editor.models.TileModel;
+import editor.persistance.ExportManifest;
 import generated.TileMapData;
 
 /**
@@ -39,6 +59,110 @@ public final class TileMapFileSystem extends AbstractFileSystem {
      */
     private transient final String _fileName = "tilemap";
 
+    /**
+     * The number of empty pixels between two tiles of the generated tile map image
+     */
+    private transient int _padding;
+
+    /**
+     * Indicates if the dimensions of the generated tile map image must be a power of two
+     */
+    private transient boolean _isPowerOfTwo;
+
+    /**
+     * The maximum width and height of a page of the generated tile map image
+     */
+    private transient int _maximumPageSize = 4096;
+
+    /**
+     * Indicates if tiles with identical pixels share the same area of the generated tile map image
+     */
+    private transient boolean _isSharingDuplicates;
+
+    /**
+     * The key of the manifest entry holding the settings of the layout of the generated tile map image
+     */
+    private static final String MANIFEST_SETTINGS = "settings";
+
+    /**
+     * The prefix of the manifest entries of the pages of the generated tile map image
+     */
+    private static final String MANIFEST_PAGE = "page:";
+
+    /**
+     * The prefix of the manifest entries of the tiles of the generated tile map image
+     */
+    private static final String MANIFEST_TILE = "tile:";
+
+    /**
+     * The prefix of the manifest entries of the empty areas of the generated tile map image that held a tile
+     */
+    private static final String MANIFEST_FREE = "free:";
+
+    /**
+     * Indicates if the lookup enums are compiled into the generated package
+     */
+    private transient boolean _isGeneratingLookupClasses = true;
+
+    /**
+     * The encoder of the pages of the generated tile map image, or null if the pages are written by {@link ImageIO}
+     */
+    private transient PngEncoder _pngEncoder;
+
+    /**
+     * The layout of the tiles within the pages of the generated tile map image
+     */
+    private static final class Layout {
+
+        /**
+         * The area of every tile within its page
+         */
+        private final Rectangle[] _placements;
+
+        /**
+         * The page of every tile
+         */
+        private final int[] _pages;
+
+        /**
+         * Indicates for every tile if it must be drawn
+         */
+        private final boolean[] _isChanged;
+
+        /**
+         * The size of every page
+         */
+        private final List<Dimension> _pageSizes = new ArrayList<>();
+
+        /**
+         * The areas of every page that must be cleared, by their page
+         */
+        private final Map<Integer, List<Rectangle>> _clearedAreas = new HashMap<>();
+
+        /**
+         * The pages that must be written
+         */
+        private final Set<Integer> _dirtyPages = new TreeSet<>();
+
+        /**
+         * Indicates if this is the layout of the previous export, drawn onto the pages that it wrote
+         */
+        private final boolean _isReused;
+
+        /**
+         * Constructs a new instance of this class type
+         * 
+         * @param size The number of tiles
+         * @param isReused If this is the layout of the previous export
+         */
+        private Layout(int size, boolean isReused) {
+            _placements = new Rectangle[size];
+            _pages = new int[size];
+            _isChanged = new boolean[size];
+            _isReused = isReused;
+        }
+    }
+
     /** 
      * Constructs a new instance of this class type
      * 
@@ -57,148 +181,437 @@ public final class TileMapFileSystem extends AbstractFileSystem {
         super(file);
     }
 
+    /**
+     * Sets the number of empty pixels between two tiles of the generated tile map image
+     * 
+     * @param padding The number of empty pixels
+     */
+    public void setPadding(int padding) {
+        _padding = padding;
+    }
+
+    /**
+     * Sets if the dimensions of the generated tile map image must be a power of two
+     * 
+     * @param isPowerOfTwo If the dimensions must be a power of two
+     */
+    public void setPowerOfTwo(boolean isPowerOfTwo) {
+        _isPowerOfTwo = isPowerOfTwo;
+    }
+
+    /**
+     * Sets if tiles with identical pixels share the same area of the generated tile map image
+     * 
+     * @param isSharingDuplicates If duplicate tiles should be shared
+     */
+    public void setSharingDuplicates(boolean isSharingDuplicates) {
+        _isSharingDuplicates = isSharingDuplicates;
+    }
+
+    /**
+     * Sets if the lookup enums are compiled into the generated package, the lookup index is
+     * always generated regardless.  Without the enums, games read the lookup index through
+     * {@link LookupIndex#instance()} once the DATA_PATH_LOOKUP engine property points to it
+     * 
+     * Note: The lookup enums require a compiler, they are not generated when no compiler is available
+     * 
+     * @param isGeneratingLookupClasses If the lookup enums should be generated
+     */
+    public void setGeneratingLookupClasses(boolean isGeneratingLookupClasses) {
+        _isGeneratingLookupClasses = isGeneratingLookupClasses;
+    }
+
+    /**
+     * Sets the encoder of the pages of the generated tile map image
+     * 
+     * @param pngEncoder The encoder, or null if the pages should be written by {@link ImageIO}
+     */
+    public void setPngEncoder(PngEncoder pngEncoder) {
+        _pngEncoder = pngEncoder;
+    }
+
+    /**
+     * Sets the maximum width and height of a page of the generated tile map image, tiles that do not fit
+     * within a single page are placed on additional pages
+     * 
+     * @param maximumPageSize The maximum width and height of a page
+     */
+    public void setMaximumPageSize(int maximumPageSize) {
+        _maximumPageSize = maximumPageSize;
+    }
+
     /**
      * Generates a tile map representation of all the tile data loaded within the file system
+     * 
+     * Note: Every tile is packed individually into the image, so that the image is as small as possible.  When
+     *       the tiles do not fit within a single page, the images of the other pages are suffixed by their page
      */
     public void generateTileMap() {
 
-        // Get the list of tile map models.  The order of this list matters in this method
-        // when performing operations
-        List<TileMapModel> tileMapModels = getData(TileMapModel.class);
+        // Get the list of tiles that are to be exported, along with their data.  The order
+        // of these lists matters in this method when performing operations
+        List<TileModel> tileModels = new ArrayList<>();
+        List<TileMapData> tileMapDatas = generateTileMapData(getData(TileMapModel.class), tileModels);
+
+        // Get the tiles that are drawn into the image, tiles with identical pixels share the same
+        // tile when duplicates are shared
+        List<String> keys = tileModels.parallelStream().map(TileMapFileSystem::getDuplicateKey).collect(Collectors.toList());
+        List<TileModel> drawnTiles = new ArrayList<>();
+        List<String> drawnKeys = new ArrayList<>();
+        List<String> drawnIdentities = new ArrayList<>();
+        int[] drawnIndices = new int[tileModels.size()];
+        Map<String, Integer> sharedKeys = new HashMap<>();
+        for(int i = 0, size = tileModels.size(); i < size; ++i) {
+            Integer index = _isSharingDuplicates ? sharedKeys.get(keys.get(i)) : null;
+            if(index == null) {
+                index = drawnTiles.size();
+                sharedKeys.put(keys.get(i), index);
+                drawnTiles.add(tileModels.get(i));
+                drawnKeys.add(keys.get(i));
+
+                // A shared tile is identified by its pixels, since any of the tiles that share it could be the one drawn
+                drawnIdentities.add(_isSharingDuplicates ? keys.get(i) : tileModels.get(i).getUUID().toString());
+            }
+            drawnIndices[i] = index;
+        }
 
-        // Calculate the width and height necessary to incorporate all tile map images
-        int width = 0;
-        int height = 0;
-        for(TileMapModel tileMapModel : tileMapModels) {
-            // Control the max height to remove unneeded white space. Obviously the width
-            // will always increase.  Please note that you could also do this from it's height
-            // and control the max-width.  Also, if you are very anal about white space you can
-            // try and fill up the white spaces with an entire tile map
-            width += tileMapModel.getColumns() * tileMapModel.getWidth();
-            height = Math.max(height, tileMapModel.getRows() * tileMapModel.getHeight());
+        // The output path where the image of the first page will be written to, the images of the other pages
+        // are written next to it
+        String outputPath = String.format("%s" + File.separator + "%s%s", _file.getParent(), Paths.filenameNoExtension(_file), EXTENSION_PNG);
+
+        // Keep the layout of the previous export into the same location when every tile still has an area of its
+        // size, so that only the tiles that changed are drawn.  Otherwise the tiles are packed into the smallest pages possible
+        File manifestFile = new File(_file.getParentFile(), Paths.filenameNoExtension(_file) + ExportManifest.EXTENSION);
+        ExportManifest previousManifest = ExportManifest.read(manifestFile);
+        Layout previousLayout = getPreviousLayout(previousManifest, drawnIdentities, drawnKeys, outputPath);
+        Layout layout = previousLayout != null 
+            ? previousLayout 
+            : getPackedLayout(drawnTiles.stream().map(z -> new Dimension(z.getWidth(), z.getHeight())).collect(Collectors.toList()));
+
+        // Go through the list of tiles and give each tile map data the position that was given to its tile
+        for(int i = 0, size = tileModels.size(); i < size; ++i) {
+            TileMapData data = tileMapDatas.get(i);
+            Rectangle placement = layout._placements[drawnIndices[i]];
+            data.setPage(layout._pages[drawnIndices[i]]);
+            data.setPositionTopLeft(placement.x, placement.y);
+            data.setPositionBottomRight(placement.x + placement.width, placement.y + placement.height);
+
+            // Include the tile map data into the file system
+            write(data);
         }
 
-        // Create a buffered image with the specified dimensions and get the graphics context associated to this image
-        // Fill the entire image with the specified color for debug purposes
-        BufferedImage image = new BufferedImage(width, height , BufferedImage.TYPE_INT_ARGB);
-        Graphics2D graphics = image.createGraphics();
-        
-        // Create an alpha composite so that the initial background is fully transparent
-        AlphaComposite composite = AlphaComposite.getInstance(AlphaComposite.CLEAR, 0.0f);
-        graphics.setComposite(composite);
-        
-        // Draw the initial layout of the buffer
-        graphics.fillRect(0, 0, width, height);
-        
-        // Set the composite back so that we can draw things over the transparent background
-        graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER));
-        
-        // Go through the list of tile map models and from the generated list of tile map data, place the
-        // image held by it into the image placeholder
-        for(int i = 0, posX = 0, iSize = tileMapModels.size(); i < iSize; ++i) {
-
-            // Generate the list of tile map data
-            List<TileMapData> tileMapDatas = generateTileMapData(tileMapModels.get(i), posX);
-
-            for(int j = 0, jSize = tileMapDatas.size(); j < jSize; ++j) {
-
-                // Draw the portion of this image onto the image
-                Image img = tileMapModels.get(i).getTiles().get(j).getImage();
-                if(img != null) {
-                    graphics.drawImage(
-                            img,
-                            tileMapDatas.get(j).getTopLeftX(), 
-                            tileMapDatas.get(j).getTopLeftY(), 
-                            tileMapDatas.get(j).getBottomRightX() - tileMapDatas.get(j).getTopLeftX(),
-                            tileMapDatas.get(j).getBottomRightY() - tileMapDatas.get(j).getTopLeftY(),
-                            null
-                            );
+        // The drawn tiles are grouped by their page so that each page can be drawn on its own
+        List<List<Integer>> pageTiles = new ArrayList<>();
+        for(int page = 0; page < layout._pageSizes.size(); ++page) {
+            pageTiles.add(new ArrayList<>());
+        }
+        for(int i = 0, size = drawnTiles.size(); i < size; ++i) {
+            pageTiles.get(layout._pages[i]).add(i);
+        }
+
+        // Only a single page is ever held in memory, every page is written before the next one is drawn.  Pages
+        // that have not changed since the previous export are left as is
+        ExportManifest manifest = new ExportManifest(manifestFile);
+        manifest.put(MANIFEST_SETTINGS, new ExportManifest.Entry(getLayoutSettings(), -1));
+        for(int page = 0, pages = layout._pageSizes.size(); page < pages; ++page) {
+
+            File pageFile = new File(Paths.getPagePath(outputPath, page));
+            Dimension pageSize = layout._pageSizes.get(page);
+            if(layout._dirtyPages.contains(page)) {
+
+                // Draw onto the image of the previous export when the layout was kept, otherwise start from a new
+                // image which is fully transparent.  All the tiles of the page are drawn when the previous image cannot be read
+                BufferedImage image = layout._isReused ? readPage(pageFile, pageSize) : null;
+                List<Integer> tiles = pageTiles.get(page);
+                if(image == null) {
+                    image = new BufferedImage(pageSize.width, pageSize.height, BufferedImage.TYPE_INT_ARGB);
+                }
+                else {
+                    clear(image, layout._clearedAreas.getOrDefault(page, new ArrayList<>()));
+                    tiles = tiles.stream().filter(z -> layout._isChanged[z]).collect(Collectors.toList());
+                }
+
+                // Draw the image of every tile into its position, images that have not been
+                // decoded yet are decoded in parallel as well
+                AtlasCompositor.draw(
+                    image,
+                    tiles.parallelStream().map(z -> drawnTiles.get(z).getImage()).collect(Collectors.toList()),
+                    tiles.stream().map(z -> layout._placements[z]).collect(Collectors.toList())
+                );
+
+                try {
+                    // Write to the tile map file as a "png" format the final buffer image contents
+                    if(_pngEncoder != null) {
+                        _pngEncoder.write(image, pageFile);
+                    }
+                    else {
+                        ImageIO.write(image, Paths.cleanExtensionMark(EXTENSION_PNG, true), pageFile);
+                    }
+                } 
+                catch (Exception exception) {
+                    Tracelog.log(Level.SEVERE, true, exception);
+                }
+
+                image.flush();
+            }
+
+            manifest.put(MANIFEST_PAGE + page, new ExportManifest.Entry("", pageFile.length(), page, new Rectangle(pageSize)));
+        }
+
+        for(int i = 0, size = drawnTiles.size(); i < size; ++i) {
+            manifest.put(MANIFEST_TILE + drawnIdentities.get(i), new ExportManifest.Entry(drawnKeys.get(i), -1, layout._pages[i], layout._placements[i]));
+        }
+        for(Entry<Integer, List<Rectangle>> clearedAreas : layout._clearedAreas.entrySet()) {
+            for(Rectangle area : clearedAreas.getValue()) {
+                manifest.put(MANIFEST_FREE + clearedAreas.getKey() + ":" + area.x + ":" + area.y, new ExportManifest.Entry("", -1, clearedAreas.getKey(), area));
+            }
+        }
+        manifest.write();
+    }
+
+    /**
+     * Gets the settings that the layout of the generated tile map image depends on, this includes the encoding
+     * of the pages so that every page is written again when the encoding changes
+     * 
+     * @return The layout settings
+     */
+    private String getLayoutSettings() {
+        return _padding + ":" + _isPowerOfTwo + ":" + _maximumPageSize + ":" + _isSharingDuplicates + (_pngEncoder != null ? ":" + _pngEncoder.getSettings() : "");
+    }
+
+    /**
+     * Gets a layout where the specified tiles are packed into new pages
+     * 
+     * @param sizes The size of every tile
+     * 
+     * @return The layout of the tiles
+     */
+    private Layout getPackedLayout(List<Dimension> sizes) {
+        AtlasPacker packer = new AtlasPacker(_padding, _isPowerOfTwo, _maximumPageSize);
+        List<Rectangle> placements = packer.pack(sizes);
+
+        Layout layout = new Layout(sizes.size(), false);
+        for(int i = 0, size = sizes.size(); i < size; ++i) {
+            layout._placements[i] = placements.get(i);
+            layout._pages[i] = packer.getPage(i);
+            layout._isChanged[i] = true;
+        }
+        for(int page = 0; page < packer.getPageCount(); ++page) {
+            layout._pageSizes.add(new Dimension(Math.max(1, packer.getSize(page).width), Math.max(1, packer.getSize(page).height)));
+            layout._dirtyPages.add(page);
+        }
+
+        return layout;
+    }
+
+    /**
+     * Gets the layout of the previous export, the tiles that are unchanged keep their area and every other tile
+     * takes the area of a tile of the same size that no longer exists
+     * 
+     * @param previousManifest The manifest of the previous export
+     * @param identities The identity of every tile
+     * @param keys The key of every tile, this holds the size and the pixels of the tile
+     * @param outputPath The output path of the image of the first page
+     * 
+     * @return The layout of the tiles, or null if the layout of the previous export cannot be kept
+     */
+    private Layout getPreviousLayout(ExportManifest previousManifest, List<String> identities, List<String> keys, String outputPath) {
+        ExportManifest.Entry settings = previousManifest.get(MANIFEST_SETTINGS);
+        if(settings == null || !settings.getHash().equals(getLayoutSettings())) {
+            return null;
+        }
+
+        // Every page of the previous export must still be the page that was written
+        Layout layout = new Layout(identities.size(), true);
+        for(ExportManifest.Entry page; (page = previousManifest.get(MANIFEST_PAGE + layout._pageSizes.size())) != null;) {
+            if(!page.isWritten(new File(Paths.getPagePath(outputPath, layout._pageSizes.size())))) {
+                return null;
+            }
+            layout._pageSizes.add(page.getBounds().getSize());
+        }
+        if(layout._pageSizes.isEmpty()) {
+            return null;
+        }
+
+        // The tiles that are unchanged keep their area, the area of every other tile is freed
+        Map<String, ExportManifest.Entry> previousTiles = previousManifest.getEntries(MANIFEST_TILE);
+        boolean[] isPlaced = new boolean[identities.size()];
+        for(int i = 0, size = identities.size(); i < size; ++i) {
+            ExportManifest.Entry entry = previousTiles.get(MANIFEST_TILE + identities.get(i));
+            if(entry != null && entry.getHash().equals(keys.get(i)) && entry.getPage() < layout._pageSizes.size()) {
+                previousTiles.remove(MANIFEST_TILE + identities.get(i));
+                layout._placements[i] = entry.getBounds();
+                layout._pages[i] = entry.getPage();
+                isPlaced[i] = true;
+            }
+        }
+
+        // The areas that were already empty can be taken as well
+        Map<String, ExportManifest.Entry> previousFreeAreas = previousManifest.getEntries(MANIFEST_FREE);
+        previousTiles.putAll(previousFreeAreas);
+
+        Map<Dimension, List<ExportManifest.Entry>> freedAreas = new HashMap<>();
+        for(ExportManifest.Entry entry : previousTiles.values()) {
+            if(entry.getPage() < layout._pageSizes.size()) {
+                freedAreas.computeIfAbsent(entry.getBounds().getSize(), z -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        // Every other tile takes a freed area of its size, the layout cannot be kept if there is none
+        for(int i = 0, size = identities.size(); i < size; ++i) {
+            if(!isPlaced[i]) {
+                List<ExportManifest.Entry> areas = freedAreas.get(getSize(keys.get(i)));
+                if(areas == null || areas.isEmpty()) {
+                    return null;
                 }
 
-                // Include the tile map data into the file system
-                write(tileMapDatas.get(j));
+                ExportManifest.Entry entry = areas.remove(areas.size() - 1);
+                layout._placements[i] = entry.getBounds();
+                layout._pages[i] = entry.getPage();
+                layout._isChanged[i] = true;
+                layout._dirtyPages.add(entry.getPage());
             }
+        }
 
-            // Update the offset for the next tile map start position
-            posX += tileMapModels.get(i).getColumns() * tileMapModels.get(i).getWidth();
+        // The freed areas that were not taken are cleared, and are remembered so that a later export can take them.  The
+        // areas that were already empty do not need to be cleared again
+        for(List<ExportManifest.Entry> areas : freedAreas.values()) {
+            for(ExportManifest.Entry entry : areas) {
+                layout._clearedAreas.computeIfAbsent(entry.getPage(), z -> new ArrayList<>()).add(entry.getBounds());
+                if(!previousFreeAreas.containsValue(entry)) {
+                    layout._dirtyPages.add(entry.getPage());
+                }
+            }
         }
 
+        return layout;
+    }
+
+    /**
+     * Gets the size of a tile from its duplicate key
+     * 
+     * @param key The duplicate key of the tile
+     * 
+     * @return The size of the tile
+     */
+    private static Dimension getSize(String key) {
+        String[] size = key.substring(0, key.indexOf(':')).split("x");
+        return new Dimension(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+    }
+
+    /**
+     * Reads the image of a page that was previously written
+     * 
+     * @param file The file of the page
+     * @param size The size of the page
+     * 
+     * @return The image of the page, or null if it could not be read
+     */
+    private static BufferedImage readPage(File file, Dimension size) {
         try {
-            // The output path where the image will be written to
-            String outputPath = String.format("%s" + File.separator + "%s%s", _file.getParent(), Paths.filenameNoExtension(_file), EXTENSION_PNG);
+            BufferedImage page = ImageIO.read(file);
+            if(page == null || page.getWidth() != size.width || page.getHeight() != size.height) {
+                return null;
+            }
 
-            // Write to the tile map file as a "png" format the final buffer image contents
-            ImageIO.write(image, Paths.cleanExtensionMark(EXTENSION_PNG, true), new File(outputPath));
-        } 
-        catch (Exception exception) {
-            Tracelog.log(Level.SEVERE, true, exception);
+            // The image is copied into an image that can be drawn into by the compositor
+            BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.drawImage(page, 0, 0, null);
+            graphics.dispose();
+
+            return image;
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.WARNING, true, exception);
+            return null;
         }
     }
 
     /**
-     * Generates a list of data models from the list of provided tile map models.
+     * Clears the specified areas of the specified image, making them fully transparent
      * 
-     * @param tileMapModel The list of tile map models
-     * @param offsetX The x-offset to set each tile map top-left position to
+     * @param image The image
+     * @param areas The areas to clear
+     */
+    private static void clear(BufferedImage image, List<Rectangle> areas) {
+        Graphics2D graphics = image.createGraphics();
+        graphics.setComposite(AlphaComposite.Clear);
+        for(Rectangle area : areas) {
+            graphics.fill(area);
+        }
+        graphics.dispose();
+    }
+
+    /**
+     * Gets the key used to find the tiles that are duplicates of each other, duplicates have the same
+     * size and the same pixels
+     * 
+     * @param tileModel The tile
+     * 
+     * @return The key of the tile
+     */
+    private static String getDuplicateKey(TileModel tileModel) {
+        StoredImage storedImage = tileModel.getStoredImage();
+        String pixelHash = storedImage == null ? null : storedImage.getPixelHash();
+        return tileModel.getWidth() + "x" + tileModel.getHeight() + ":" + pixelHash;
+    }
+
+    /**
+     * Generates a list of data models from the list of provided tile map models.  The position of each
+     * data model is set once the tiles have been packed
+     * 
+     * @param tileMapModels The list of tile map models
+     * @param tileModels The list that is populated with the tile of each data model, in the same order
      * 
      * @return A list of tile map data's that represent that passed in models
      */
-    private List<TileMapData> generateTileMapData(TileMapModel tileMapModel, int offsetX) {
+    private List<TileMapData> generateTileMapData(List<TileMapModel> tileMapModels, List<TileModel> tileModels) {
         
+        // Resolve the order of the layers once, the layers of each tile are kept in this order
+        Map<UUID, Integer> layerOrder = new HashMap<>();
+        for(TileLayerModel tileLayerModel : (List<TileLayerModel>) getData(TileLayerModel.class)) {
+            layerOrder.putIfAbsent(tileLayerModel.getUUID(), layerOrder.size());
+        }
+
         List<TileMapData> tileMapDatas = new ArrayList();
-        List<TileLayerModel> tileLayers = getData(TileLayerModel.class);
-        for(int i = 0; i < tileMapModel.getTiles().size(); ++i) {
+        for(TileMapModel tileMapModel : tileMapModels) {
+            for(TileModel tileModel : tileMapModel.getTiles()) {
 
-            // Create the instance of the tile map data
-            TileModel tileModel = tileMapModel.getTiles().get(i);
-            
-            if(tileModel.getLayers() == null || tileModel.getLayers().isEmpty()) {
-                Tracelog.log(Level.INFO, true, "Cannot add tile model " + tileModel.toString() + " because no layers were associated to it");
-                continue;
+                if(tileModel.getLayers() == null || tileModel.getLayers().isEmpty()) {
+                    Tracelog.log(Level.INFO, true, "Cannot add tile model " + tileModel.toString() + " because no layers were associated to it");
+                    continue;
+                }
+
+                // Create the instance of the tile map data
+                TileMapData data = new TileMapData(
+                    tileModel.getUUID(),
+                    tileModel.getName(), 
+                    tileModel.getFriendlyName(),
+                    tileModel.getLayers().stream().filter(layerOrder::containsKey).distinct().sorted(Comparator.comparing(layerOrder::get)).collect(Collectors.toList())
+                );
+
+                tileMapDatas.add(data);
+                tileModels.add(tileModel);
             }
-            
-            TileMapData data = new TileMapData(
-                tileModel.getUUID(),
-                tileModel.getName(), 
-                tileModel.getFriendlyName(),
-                tileLayers.stream().filter(z -> tileModel.getLayers().contains(z.getUUID())).map(z -> z.getUUID()).collect(Collectors.toList())
-            );
-
-            // Set the top-left point
-            data.setPositionTopLeft(
-                offsetX + (tileMapDatas.size() % tileMapModel.getColumns()) * tileModel.getWidth(),
-                (tileMapDatas.size() / tileMapModel.getColumns()) * tileModel.getHeight()
-            );
-
-            // Set the bottom-right point
-            data.setPositionBottomRight(
-                data.getTopLeftX() + tileModel.getWidth(),
-                data.getTopLeftY() + tileModel.getHeight()
-            );
-
-            tileMapDatas.add(data);
         }
 
         return tileMapDatas;
     }
 
     /**
-     * Generates and returns the contents of the lookup file
+     * Gets the groups of models that can be looked up by name, there is a group for every tile layer
+     * holding its tiles, and a group holding the named layers
      * 
-     * @return The generated file
+     * @return The models of every group, by the name of the group
      */
-    private File generateDataLookupFile() {
-
-        // Create a logical file for storing the generated source content
-        // and specify that the file should be deleted when the application terminates
-        File dataLookupFile = new File(System.getProperty("java.io.tmpdir") + "DataLookup" + EXTENSION_JAVA);
-        dataLookupFile.deleteOnExit();
+    private Map<String, List<? extends IModel>> getDataLookupGroups() {
 
-        // Create a new class generator with the specified class name and the specified package name
-        ClassGenerator classGenerator = new ClassGenerator(TileMapData.class.getPackage().getName(), Paths.filenameNoExtension(dataLookupFile));
+        Map<String, List<? extends IModel>> groups = new LinkedHashMap<>();
 
         // Holds a reference to the data stored within the file system, this will be used
-        // when generating the data lookup enums below
+        // when generating the data lookup groups below
         List<TileLayerModel> tileLayers = this.getData(TileLayerModel.class);
         List<TileMapModel> tileMapModels =  this.getData(TileMapModel.class);
 
@@ -213,20 +626,54 @@ public final class TileMapFileSystem extends AbstractFileSystem {
             }
             
             if(!layerTileModels.isEmpty()) {
-                classGenerator.appendEnum(tileLayerModel.getName(), layerTileModels);    
+                groups.put(tileLayerModel.getName(), layerTileModels);
             }
         }
         
-        // Create another enum entry for the list of layers
-        classGenerator.appendEnum("LAYER", tileLayers.stream().filter(z -> !z.getName().isEmpty()).collect(Collectors.toList()));
+        // Create another group for the list of layers
+        groups.put("LAYER", tileLayers.stream().filter(z -> !z.getName().isEmpty()).collect(Collectors.toList()));
+
+        return groups;
+    }
+
+    /**
+     * Generates the class generator holding the contents of the lookup file
+     * 
+     * @param groups The models of every group, by the name of the group
+     * 
+     * @return The class generator of the lookup file
+     */
+    private ClassGenerator generateDataLookup(Map<String, List<? extends IModel>> groups) {
+
+        // Create a new class generator with the specified class name and the specified package name
+        ClassGenerator classGenerator = new ClassGenerator(TileMapData.class.getPackage().getName(), "DataLookup");
+        for(Entry<String, List<? extends IModel>> group : groups.entrySet()) {
+            classGenerator.appendEnum(group.getKey(), group.getValue());
+        }
+
+        // Return the class generator back, its contents will soon get compiled programmatically
+        return classGenerator;
+    }
 
-        // Write the contents to the .java file within the temporary directory.  It will
-        // soon get compiled programmatically, and will be removed when the JVM releases
-        // its resources
-        classGenerator.write(dataLookupFile);
+    /**
+     * Generates the lookup index holding the identifiers of every group, the index can be read without
+     * a compiler being available
+     * 
+     * @param groups The models of every group, by the name of the group
+     * 
+     * @return The lookup index
+     */
+    private LookupIndex generateLookupIndex(Map<String, List<? extends IModel>> groups) {
+        Map<String, Map<String, UUID>> identifiers = new LinkedHashMap<>();
+        for(Entry<String, List<? extends IModel>> group : groups.entrySet()) {
+            Map<String, UUID> names = new LinkedHashMap<>();
+            for(IModel model : group.getValue()) {
+                names.put(model.getName(), model.getUUID());
+            }
+            identifiers.put(group.getKey(), names);
+        }
 
-        // Return the file back
-        return dataLookupFile;
+        return LookupIndex.build(identifiers);
     }
 
     @Override public String serialize() {
@@ -246,14 +693,31 @@ public final class TileMapFileSystem extends AbstractFileSystem {
                 );
 
         try {
-            // Compile the temporary file that was generated and get a reference to its
-            // list of compiled files
-            List<File> compiledFiles = Javac.compile(generateDataLookupFile().toURI());
-
-            // Go through the list of compiled .class files and add each of them
-            // as an entry into the .jar construct
-            for(File file : compiledFiles) {
-                jarPackage.addEntry(file, Paths.packageToPath(TileMapData.class));
+            Map<String, List<? extends IModel>> groups = getDataLookupGroups();
+
+            // Write the lookup index, this is always written so that the data can be looked up even
+            // when the lookup enums are not generated
+            try(OutputStream stream = new BufferedOutputStream(new FileOutputStream(new File(_file.getParent(), _fileName + LookupIndex.EXTENSION_LOOKUP)))) {
+                generateLookupIndex(groups).write(stream);
+            }
+
+            if(_isGeneratingLookupClasses && !Javac.isAvailable()) {
+                Tracelog.log(Level.WARNING, true, "Cannot find any Java Compiler, the lookup enums will not be generated");
+            }
+            else if(_isGeneratingLookupClasses) {
+
+                // Compile the lookup that was generated in memory.  An unchanged lookup is not compiled again, the
+                // hash of its source is kept within the jar so that its classes are reused by the next export
+                ClassGenerator dataLookup = generateDataLookup(groups);
+                String source = dataLookup.generate();
+                Map<String, byte[]> compiledClasses = Javac.compile(dataLookup.getQualifiedName(), source, new File(_file.getParent(), _fileName + EXTENSION_JAR));
+                jarPackage.setAttribute(Javac.SOURCE_HASH, Javac.getSourceHash(dataLookup.getQualifiedName(), source));
+
+                // Go through the list of compiled classes and add each of them
+                // as an entry into the .jar construct
+                for(Entry<String, byte[]> compiledClass : compiledClasses.entrySet()) {
+                    jarPackage.addEntry(compiledClass.getValue(), compiledClass.getKey().replace('.', '/') + ".class");
+                }
             }
         }
         catch(Exception exception) {
@@ -261,8 +725,20 @@ public final class TileMapFileSystem extends AbstractFileSystem {
             return null;
         }
 
-        // Close the jar package stream
+        // Close the jar package, an unchanged package is not written again
         jarPackage.close();
+        if(jarPackage.isUnchanged()) {
+            Tracelog.log(Level.INFO, true, "The generated jar is unchanged since the last export");
+        }
+
+        // Write the packed representation of the tile map data, games can load it instead of the .xml
+        try(OutputStream stream = new BufferedOutputStream(new FileOutputStream(new File(_file.getParent(), _fileName + PackedData.EXTENSION_DATA)))) {
+            PackedData.write(getData(TileMapData.class), stream);
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, true, exception);
+            return null;
+        }
 
         // Cleanup the file system, ensuring that only the tile map entity objects exist
         // so that this is all that is actually serialized.  This is done because everything
@@ -31,4 +31,11 @@ public interface IData {
      * @return The bottom-right coordinate of this data
      */
     public Point getBottomRight();
+
+    /**
+     * @return The page of the sheet holding this data, the first page is the main sheet
+     */
+    public default int getPage() {
+        return 0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package framework.communication.external.builder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.logging.Level;
+
+import framework.api.IData;
+import framework.communication.external.filesystem.FileSystem;
+import framework.core.factories.AbstractFactory;
+import framework.core.factories.DataFactory;
+import framework.utils.io.PackedData;
+import framework.utils.logging.Tracelog;
+
+/**
+ * Data builder used for building data from its packed binary representation, this is used instead
+ * of the {@link DataBuilder} so that the data is loaded without having to unmarshal any .xml
+ *
+ * Note: When the data resides within a file on disk the file is mapped into memory, otherwise
+ *       the data is read at once
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ *
+ */
+public class BinaryDataBuilder extends AbstractBuilder<FileSystem> {
+
+    /**
+     * The path where the data resides
+     */
+    private final String _path;
+
+    /**
+     * The data that was read
+     */
+    private List<IData> _data;
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param path The path where the data resides, this is either a resource or a file
+     */
+    public BinaryDataBuilder(String path) {
+        _path = path;
+    }
+
+    @Override public boolean buildStart() {
+        try {
+            _data = PackedData.read(getBuffer());
+            return true;
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, false, exception);
+            return false;
+        }
+    }
+
+    /**
+     * Gets the buffer holding the data
+     *
+     * @return The buffer holding the data
+     *
+     * @throws Exception If the data could not be found or read
+     */
+    private ByteBuffer getBuffer() throws Exception {
+
+        // The data is mapped when it is a file, whether it is a resource or not
+        URL resource = getClass().getResource(_path);
+        File file = resource != null && "file".equals(resource.getProtocol()) ? new File(resource.toURI()) : new File(_path);
+        if(file.isFile()) {
+            try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return channel.map(MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        if(resource == null) {
+            throw new IllegalArgumentException("Cannot find the data " + _path);
+        }
+
+        // The data resides within an archive, read it all at once
+        try(InputStream stream = resource.openStream()) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            for(int count; (count = stream.read(buffer)) != -1;) {
+                outputStream.write(buffer, 0, count);
+            }
+            return ByteBuffer.wrap(outputStream.toByteArray());
+        }
+    }
+
+    @Override public void buildContent() {
+        AbstractFactory.getFactory(DataFactory.class).populateData(_data);
+    }
+
+    @Override public void buildEnd() {
+        _data = null;
+    }
+}
\ No newline at end of file
@@ -7,7 +7,6 @@ import java.util.logging.Level;
 
 import framework.api.IData;
 import framework.communication.external.filesystem.FileSystem;
-import framework.communication.internal.persistance.IXMLCodec.XMLCodec;
 import framework.core.factories.AbstractFactory;
 import framework.core.factories.DataFactory;
 import framework.utils.logging.Tracelog;
@@ -37,23 +36,17 @@ public class DataBuilder extends AbstractBuilder<FileSystem> {
 
     @Override public boolean buildStart() {
 
-        // Create the codec for the file system
-        XMLCodec codec = XMLCodec.createInstance(FileSystem.class);
+        // Create the file system
+        _fileSystem = new FileSystem();
 
-        // Reference the data file
+        // Reference the data file and read its contents into the file system
         try(InputStream inStream = getClass().getResourceAsStream(_path)) {
-            // Get the selected map file and unmarshal it
-            Object fileSystem = codec.getUnmarshaller().unmarshal(inStream);
-
-            // Create the file system 
-            _fileSystem = (FileSystem)fileSystem;
+            return _fileSystem.deserialize(inStream);
         }
         catch (Exception exception) {
             Tracelog.log(Level.SEVERE, false, exception);
             return false;
         }
-
-        return true;
     }
 
     @Override public void buildContent() {
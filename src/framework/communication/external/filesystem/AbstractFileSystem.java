@@ -2,12 +2,24 @@ package framework.communication.external.filesystem;
 
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import javax.imageio.ImageIO;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -19,6 +31,7 @@ import framework.api.IModel;
 import framework.communication.external.filesystem.types.FileSystemAdapter;
 import framework.communication.internal.persistance.ISerializable;
 import framework.communication.internal.persistance.IXMLCodec;
+import framework.utils.logging.Tracelog;
 
 /**
  * Abstract functionality for all file system implementations
@@ -31,10 +44,12 @@ public abstract class AbstractFileSystem<T extends ISerializable<IModel>> implem
 
     /**
      * The data associated to this file system
+     * 
+     * Note: The insertion order is kept so that data is serialized in the same order that it was written
      */
     @XmlElement(name = "data")
     @XmlJavaTypeAdapter(FileSystemAdapter.class)
-    private final Map<Class<T>, List<T>> _data = new HashMap();
+    private final Map<Class<T>, List<T>> _data = new LinkedHashMap<>();
 
     /**
      * The file construct associated to this file system
@@ -42,6 +57,28 @@ public abstract class AbstractFileSystem<T extends ISerializable<IModel>> implem
      */
     protected transient final File _file;
 
+    /**
+     * Indicates if the data that was last read is in the order that it was written
+     * 
+     * Note: Files written before version 2 of the file format were written from an unordered map
+     */
+    private transient boolean _ordered = true;
+
+    /**
+     * The size of the buffers used when reading and writing files
+     */
+    private static transient final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Indicates if the contents of this file system are compressed when serialized
+     */
+    private transient boolean _compressed;
+
+    /**
+     * The level of compression used when the contents of this file system are compressed
+     */
+    private transient int _compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
     /**
      * The extension used for png files
      */
@@ -138,6 +175,101 @@ public abstract class AbstractFileSystem<T extends ISerializable<IModel>> implem
         dataList.add(data);
     }
 
+    /**
+     * Sets if the contents of this file system are compressed when serialized
+     * 
+     * Note: Compressed files are detected automatically when they are read
+     * 
+     * @param isCompressed If the contents should be compressed
+     */
+    public final void setCompressed(boolean isCompressed) {
+        _compressed = isCompressed;
+    }
+
+    /**
+     * Indicates if the contents of this file system are compressed when serialized
+     * 
+     * @return TRUE if the contents are compressed, FALSE otherwise
+     */
+    public final boolean isCompressed() {
+        return _compressed;
+    }
+
+    /**
+     * Sets the level of compression used when the contents of this file system are compressed
+     * 
+     * @param compressionLevel The level of compression, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION},
+     *                         or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public final void setCompressionLevel(int compressionLevel) {
+        if(compressionLevel != Deflater.DEFAULT_COMPRESSION && (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+        }
+        _compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Opens a stream that writes into the file associated to this file system, the stream compresses what
+     * is written into it if this file system is compressed
+     * 
+     * @return The buffered stream of the file
+     * 
+     * @throws IOException If the file could not be opened
+     */
+    protected final OutputStream openOutputStream() throws IOException {
+
+        OutputStream stream = Channels.newOutputStream(FileChannel.open(_file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        if(!_compressed) {
+            return new BufferedOutputStream(stream, BUFFER_SIZE);
+        }
+
+        // The deflater holds native memory, it is released as soon as the stream is closed
+        Deflater deflater = new Deflater(_compressionLevel);
+        return new BufferedOutputStream(new DeflaterOutputStream(stream, deflater, BUFFER_SIZE) {
+            @Override public void close() throws IOException {
+                try {
+                    super.close();
+                }
+                finally {
+                    deflater.end();
+                }
+            }
+        }, BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a stream that reads from the specified file, the contents of the file are decompressed if the
+     * file is compressed
+     * 
+     * @param file The file to read
+     * 
+     * @return The buffered stream of the file
+     * 
+     * @throws IOException If the file could not be opened
+     */
+    public static InputStream openInputStream(File file) throws IOException {
+
+        BufferedInputStream stream = new BufferedInputStream(Channels.newInputStream(FileChannel.open(file.toPath(), StandardOpenOption.READ)), BUFFER_SIZE);
+
+        // Look at the header of the file without consuming it
+        stream.mark(2);
+        int header = stream.read() << 8 | stream.read();
+        stream.reset();
+
+        return isCompressed(header) ? new BufferedInputStream(new InflaterInputStream(stream), BUFFER_SIZE) : stream;
+    }
+
+    /**
+     * Indicates if the specified header is the header of a zlib stream
+     * 
+     * @param header The first two bytes of a file
+     * 
+     * @return TRUE if the header is the header of a zlib stream, FALSE otherwise
+     */
+    private static boolean isCompressed(int header) {
+        return header >= 0 && (header & 0x0F00) == 0x0800 && (header >> 12) <= 7 && header % 31 == 0;
+    }
+
     /**
      * Extracts the list of images based on the file associated to this file system
      * 
@@ -177,21 +309,142 @@ public abstract class AbstractFileSystem<T extends ISerializable<IModel>> implem
         return images;
     }
 
-    @Override public String serialize() {
+    /**
+     * Reads the contents of the file associated to this file system into this file system
+     * 
+     * @return TRUE if the file was read successfully, FALSE otherwise
+     */
+    public final boolean deserialize() {
+        return deserialize(this::write);
+    }
 
-        // Serialize this class's contents
-        String serializedData = IXMLCodec.super.serialize();
+    /**
+     * Reads the contents of the file associated to this file system, every value that is read is passed to the
+     * specified consumer instead of being written into this file system
+     * 
+     * Note: Use this when the values can be consumed one at a time, the file system never holds the entire contents
+     * 
+     * @param consumer The consumer of the values
+     * 
+     * @return TRUE if the file was read successfully, FALSE otherwise
+     */
+    public boolean deserialize(Consumer<T> consumer) {
+        try(InputStream stream = openInputStream(_file)) {
+            return deserialize(stream, consumer);
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, false, exception);
+        }
 
-        // try-with-resource the printwriter statement
-        try(PrintWriter out = new PrintWriter(_file)) {
+        return false;
+    }
 
-            // output the contents of the serialized data into the file
-            out.println(serializedData);
+    /**
+     * Verifies the structure of the file associated to this file system, none of the values of the file are read
+     *
+     * Note: Use this before consuming the values of a file, so that a corrupt or truncated file is detected
+     * before anything has been built from it
+     *
+     * @return TRUE if the structure of the file is valid, FALSE otherwise
+     */
+    public boolean validate() {
+        try(InputStream stream = openInputStream(_file)) {
+            return validate(stream);
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, false, exception);
+        }
+
+        return false;
+    }
+
+    /**
+     * Verifies the structure of the specified stream, none of the values of the stream are read
+     *
+     * @param stream The stream holding the contents of a serialized file system
+     *
+     * @return TRUE if the structure of the stream is valid, FALSE otherwise
+     */
+    protected boolean validate(InputStream stream) {
+        try {
+            new FileSystemReader().validate(stream);
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, false, exception);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the contents of the specified stream into this file system
+     * 
+     * @param stream The stream holding the contents of a serialized file system
+     * 
+     * @return TRUE if the stream was read successfully, FALSE otherwise
+     */
+    public final boolean deserialize(InputStream stream) {
+        return deserialize(stream, this::write);
+    }
+
+    /**
+     * Reads the contents of the specified stream, every value that is read is passed to the specified consumer
+     * in the order that it appears within the stream
+     * 
+     * @param stream The stream holding the contents of a serialized file system
+     * @param consumer The consumer of the values
+     * 
+     * @return TRUE if the stream was read successfully, FALSE otherwise
+     */
+    protected boolean deserialize(InputStream stream, Consumer<T> consumer) {
+        try {
+            FileSystemReader reader = new FileSystemReader();
+            reader.read(stream, (T value) -> {
+                // The version is known as soon as the root element has been read
+                _ordered = reader.getVersion() >= FileSystemWriter.VERSION;
+                consumer.accept(value);
+            });
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, false, exception);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Indicates if the values that were last read have been read in the same order that they were written in
+     * 
+     * @return TRUE if the values were read in the order that they were written, FALSE if the order is unknown
+     */
+    public boolean isOrdered() {
+        return _ordered;
+    }
+
+    /**
+     * Serializes the contents of this file system into the file associated to this file system
+     * 
+     * Note: The contents are streamed directly into the file, the document is never held in memory
+     * 
+     * @see #setCompressed(boolean)
+     * 
+     * @return The absolute path of the file that was written, or null if the serialization failed
+     */
+    @Override public String serialize() {
+
+        // try-with-resource the output stream of the file
+        try(OutputStream stream = openOutputStream()) {
+
+            // output the contents of the data into the file
+            new FileSystemWriter().write(_data, stream);
 
         } catch (Exception exception) {
-            exception.printStackTrace();
+            Tracelog.log(Level.SEVERE, false, exception);
+            return null;
         }
 
-        return serializedData;
+        return _file.getAbsolutePath();
     }
 }
\ No newline at end of file
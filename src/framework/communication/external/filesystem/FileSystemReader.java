@@ -0,0 +1,271 @@
+package framework.communication.external.filesystem;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import framework.communication.internal.persistance.IXMLCodec.XMLCodec;
+
+/**
+ * Reads the contents of a file system.  Both the flat file format written by {@link FileSystemWriter} and the
+ * original format, where every value is stored as an escaped string, are supported.
+ *
+ * Note: The document is only ever parsed once, values are unmarshalled directly from the stream.  Values of the
+ *       original format are independent strings, so they are unmarshalled in parallel on the common fork-join pool
+ *       while the document continues to be parsed
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ *
+ */
+public final class FileSystemReader {
+
+    /**
+     * The name of the legacy element holding the class name of an entry
+     */
+    private static final String ELEMENT_LEGACY_KEY = "key";
+
+    /**
+     * The name of the legacy element holding the serialized value of an entry
+     */
+    private static final String ELEMENT_LEGACY_VALUE = "value";
+
+    /**
+     * The maximum number of legacy values that can be unmarshalled ahead of the consumer
+     */
+    private static final int MAXIMUM_PENDING = Runtime.getRuntime().availableProcessors() * 4;
+
+    /**
+     * The legacy values that are being unmarshalled, in document order
+     */
+    private final Deque<Future<Object>> _pending = new ArrayDeque<>();
+
+    /**
+     * The unmarshallers that have been created for each class type, creating a context is expensive
+     * so they are only created once per reader
+     */
+    private final Map<Class<?>, Unmarshaller> _unmarshallers = new HashMap<>();
+
+    /**
+     * The version of the last document that was read
+     */
+    private int _version;
+
+    /**
+     * Gets the unmarshaller associated to the specified class type
+     *
+     * @param classType The class type
+     *
+     * @return The unmarshaller of the class type
+     */
+    private Unmarshaller getUnmarshaller(Class<?> classType) {
+        Unmarshaller unmarshaller = _unmarshallers.get(classType);
+        if(unmarshaller == null) {
+            unmarshaller = XMLCodec.createInstance(classType).getUnmarshaller();
+            _unmarshallers.put(classType, unmarshaller);
+        }
+
+        return unmarshaller;
+    }
+
+    /**
+     * Gets the version of the last document that was read
+     *
+     * @return The version of the file format
+     */
+    public int getVersion() {
+        return _version;
+    }
+
+    /**
+     * Reads the specified stream, every value that is read is passed to the specified consumer
+     * in the order that it appears within the document
+     *
+     * @param stream The stream to read
+     * @param consumer The consumer of the values
+     * @param <T> The type of data within the file system
+     *
+     * @throws XMLStreamException If the document is malformed
+     * @throws JAXBException If one of the values could not be unmarshalled
+     * @throws ClassNotFoundException If the class type of an entry could not be found
+     */
+    public <T> void read(InputStream stream, Consumer<T> consumer) throws XMLStreamException, JAXBException, ClassNotFoundException {
+
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(stream);
+
+        // Position the reader on the root element and get the version of the document
+        reader.nextTag();
+        String version = reader.getAttributeValue(null, FileSystemWriter.ATTRIBUTE_VERSION);
+        _version = version == null ? 1 : Integer.parseInt(version);
+
+        try {
+            while(reader.hasNext()) {
+                if(reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(FileSystemWriter.ELEMENT_ENTRY)) {
+
+                    // Entries of the flat format hold their class name as an attribute, otherwise
+                    // the entry is in the legacy format
+                    String key = reader.getAttributeValue(null, FileSystemWriter.ATTRIBUTE_KEY);
+                    if(key != null) {
+                        consumePending(0, consumer);
+                        readEntry(reader, (Class<T>) Class.forName(key), consumer);
+                    }
+                    else {
+                        readLegacyEntry(reader);
+                        consumePending(MAXIMUM_PENDING, consumer);
+                    }
+                }
+            }
+
+            consumePending(0, consumer);
+        }
+        finally {
+            // Nothing is left pending if reading failed part way through
+            for(Future<Object> future : _pending) {
+                future.cancel(false);
+            }
+            _pending.clear();
+            reader.close();
+        }
+    }
+
+    /**
+     * Verifies the structure of the specified stream without unmarshalling any of its values, the document must
+     * be well formed through to its end and the class type of every entry must exist
+     *
+     * @param stream The stream to verify
+     *
+     * @throws XMLStreamException If the document is malformed or incomplete
+     * @throws ClassNotFoundException If the class type of an entry could not be found
+     */
+    public void validate(InputStream stream) throws XMLStreamException, ClassNotFoundException {
+
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(stream);
+
+        try {
+            reader.nextTag();
+            String version = reader.getAttributeValue(null, FileSystemWriter.ATTRIBUTE_VERSION);
+            _version = version == null ? 1 : Integer.parseInt(version);
+
+            while(reader.hasNext()) {
+                if(reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    if(reader.getLocalName().equals(FileSystemWriter.ELEMENT_ENTRY)) {
+                        String key = reader.getAttributeValue(null, FileSystemWriter.ATTRIBUTE_KEY);
+                        if(key != null) {
+                            Class.forName(key);
+                        }
+                    }
+                    else if(reader.getLocalName().equals(ELEMENT_LEGACY_KEY)) {
+                        Class.forName(reader.getElementText());
+                    }
+                }
+            }
+        }
+        catch(NumberFormatException exception) {
+            throw new XMLStreamException("Malformed version", exception);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Passes the legacy values that have been unmarshalled to the specified consumer, in document order, until
+     * no more than the specified number of values are pending
+     *
+     * @param maximumPending The number of values that can remain pending
+     * @param consumer The consumer of the values
+     * @param <T> The type of data within the file system
+     *
+     * @throws JAXBException If one of the values could not be unmarshalled
+     */
+    private <T> void consumePending(int maximumPending, Consumer<T> consumer) throws JAXBException {
+        while(_pending.size() > maximumPending) {
+            try {
+                consumer.accept((T) _pending.removeFirst().get());
+            }
+            catch(ExecutionException exception) {
+                if(exception.getCause() instanceof JAXBException) {
+                    throw (JAXBException) exception.getCause();
+                }
+                throw new JAXBException(exception.getCause());
+            }
+            catch(InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new JAXBException(exception);
+            }
+        }
+    }
+
+    /**
+     * Reads all the values of the entry that the reader is positioned on
+     *
+     * @param reader The reader, positioned on the start of the entry
+     * @param classType The class type of the values within the entry
+     * @param consumer The consumer of the values
+     * @param <T> The type of data within the file system
+     *
+     * @throws XMLStreamException If the document is malformed
+     * @throws JAXBException If one of the values could not be unmarshalled
+     */
+    private <T> void readEntry(XMLStreamReader reader, Class<T> classType, Consumer<T> consumer) throws XMLStreamException, JAXBException {
+
+        Unmarshaller unmarshaller = getUnmarshaller(classType);
+
+        reader.next();
+        while(reader.getEventType() != XMLStreamConstants.END_ELEMENT) {
+
+            // The unmarshaller consumes the entire element and leaves the reader positioned
+            // on the event that directly follows it
+            if(reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+                consumer.accept(unmarshaller.unmarshal(reader, classType).getValue());
+            }
+            else {
+                reader.next();
+            }
+        }
+    }
+
+    /**
+     * Reads the legacy entry that the reader is positioned on, the value of the entry is unmarshalled in
+     * the background and is added to the pending values
+     *
+     * @param reader The reader, positioned on the start of the entry
+     *
+     * @throws XMLStreamException If the document is malformed
+     * @throws ClassNotFoundException If the class type of the entry could not be found
+     */
+    private void readLegacyEntry(XMLStreamReader reader) throws XMLStreamException, ClassNotFoundException {
+
+        String className = null;
+        String classValue = null;
+
+        while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if(reader.getLocalName().equals(ELEMENT_LEGACY_KEY)) {
+                className = reader.getElementText();
+            }
+            else if(reader.getLocalName().equals(ELEMENT_LEGACY_VALUE)) {
+                classValue = reader.getElementText();
+            }
+        }
+
+        // Values that were null when written have been stored as empty strings
+        if(className != null && classValue != null && !classValue.isEmpty()) {
+            Class<?> classType = Class.forName(className);
+            String value = classValue;
+            _pending.addLast(ForkJoinPool.commonPool().submit(() -> XMLCodec.getThreadInstance(classType).getUnmarshaller().unmarshal(new StringReader(value))));
+        }
+    }
+}
\ No newline at end of file
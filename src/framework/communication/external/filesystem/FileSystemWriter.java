@@ -0,0 +1,134 @@
+package framework.communication.external.filesystem;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import framework.communication.internal.persistance.IXMLCodec.XMLCodec;
+
+/**
+ * Writes the contents of a file system using the flat file format.  Every value of the file system
+ * is marshalled directly as a child element of its entry, instead of being marshalled into a string
+ * and then escaped within the outer document
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ *
+ */
+public final class FileSystemWriter {
+
+    /**
+     * The version of the file format written by this writer
+     *
+     * Note: Files written before the flat format existed do not have a version, they are considered version 1
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The name of the root element
+     */
+    static final String ELEMENT_ROOT = "root";
+
+    /**
+     * The name of the data element, this holds all the entries
+     */
+    static final String ELEMENT_DATA = "data";
+
+    /**
+     * The name of an entry element, this holds all the values of a single class type
+     */
+    static final String ELEMENT_ENTRY = "entry";
+
+    /**
+     * The name of the attribute holding the version of the file format
+     */
+    static final String ATTRIBUTE_VERSION = "version";
+
+    /**
+     * The name of the attribute holding the class name of the values of an entry
+     */
+    static final String ATTRIBUTE_KEY = "key";
+
+    /**
+     * The marshallers that have been created for each class type, creating a context is expensive
+     * so they are only created once per writer
+     */
+    private final Map<Class<?>, Marshaller> _marshallers = new HashMap<>();
+
+    /**
+     * Gets the marshaller associated to the specified class type
+     *
+     * @param classType The class type
+     *
+     * @return The marshaller of the class type, configured to write fragments
+     *
+     * @throws JAXBException If the marshaller could not be configured
+     */
+    private Marshaller getMarshaller(Class<?> classType) throws JAXBException {
+        Marshaller marshaller = _marshallers.get(classType);
+        if(marshaller == null) {
+            marshaller = XMLCodec.createInstance(classType).getMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            _marshallers.put(classType, marshaller);
+        }
+
+        return marshaller;
+    }
+
+    /**
+     * Writes the specified data into the specified stream
+     *
+     * @param data The data of the file system
+     * @param stream The stream to write into
+     * @param <T> The type of data within the file system
+     *
+     * @throws XMLStreamException If the document could not be written
+     * @throws JAXBException If one of the values could not be marshalled
+     */
+    public <T> void write(Map<Class<T>, List<T>> data, OutputStream stream) throws XMLStreamException, JAXBException {
+
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(stream, "UTF-8");
+
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeCharacters(System.lineSeparator());
+        writer.writeStartElement(ELEMENT_ROOT);
+        writer.writeAttribute(ATTRIBUTE_VERSION, Integer.toString(VERSION));
+        writer.writeStartElement(ELEMENT_DATA);
+
+        for(Entry<Class<T>, List<T>> entry : data.entrySet()) {
+
+            Marshaller marshaller = getMarshaller(entry.getKey());
+
+            // All the values of the same class type are grouped under a single entry, the
+            // class name is only ever written once
+            writer.writeCharacters(System.lineSeparator());
+            writer.writeStartElement(ELEMENT_ENTRY);
+            writer.writeAttribute(ATTRIBUTE_KEY, entry.getKey().getName());
+
+            for(T value : entry.getValue()) {
+                if(value != null) {
+                    writer.writeCharacters(System.lineSeparator());
+                    marshaller.marshal(value, writer);
+                }
+            }
+
+            writer.writeCharacters(System.lineSeparator());
+            writer.writeEndElement();
+        }
+
+        writer.writeCharacters(System.lineSeparator());
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+
+        writer.flush();
+        writer.close();
+    }
+}
\ No newline at end of file
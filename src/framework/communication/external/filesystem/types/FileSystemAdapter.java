@@ -3,10 +3,13 @@ package framework.communication.external.filesystem.types;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.xml.bind.annotation.adapters.XmlAdapter;
 
@@ -18,38 +21,80 @@ import framework.utils.logging.Tracelog;
  * This class represents an adapter for the base file system class structure, used to convert the complex
  * file system structure field types into something more basic
  * 
+ * Note: Entries are independent of each other, so they are marshalled and unmarshalled in parallel on the
+ *       common fork-join pool.  The order of the entries within the document is always preserved
+ * 
  * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
  *
  * @param <T> A serializable typed object
  */
 public class FileSystemAdapter<T extends ISerializable<String>> extends XmlAdapter<FileSystemWrapperList, Map<Class<T>, List<T>>> {
 
-    @Override public FileSystemWrapperList marshal(Map<Class<T>, List<T>> data) throws Exception {
+    /**
+     * The minimum number of entries required before the entries are processed in parallel, for fewer entries
+     * the cost of splitting the work is greater than the work itself
+     */
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    /**
+     * A single value of the data, along with its class type
+     *
+     * @param <T> A serializable typed object
+     */
+    private static final class Value<T> {
+
+        /**
+         * The class type of the value
+         */
+        private final Class<T> _classType;
+
+        /**
+         * The value
+         */
+        private final T _value;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param classType The class type of the value
+         * @param value The value
+         */
+        private Value(Class<T> classType, T value) {
+            _classType = classType;
+            _value = value;
+        }
+    }
 
-        // Create a new file system map type
-        FileSystemWrapperList myMapType = new FileSystemWrapperList();
+    @Override public FileSystemWrapperList marshal(Map<Class<T>, List<T>> data) throws Exception {
 
-        // Go through the key-value pairs of the map
+        // Flatten the data into the list of values, in the order that they are to be written
+        List<Value<T>> values = new ArrayList<>();
         for(Entry<Class<T>, List<T>> entry : data.entrySet()) {
-
-            // Go through the element within the list of the value
             for(T value : entry.getValue()) {
+                values.add(new Value<>(entry.getKey(), value));
+            }
+        }
 
-                // Create a new type, and within that type store the class name 
-                // and the actual value as a serialized string
-                FileSystemElement entryType =  new FileSystemElement(
-                        entry.getKey().getName(),
-                        value == null ? "" : value.serialize()
-                        );
+        // Serialize every value into its own element, the order of the collected
+        // elements is the same as the order of the values
+        List<FileSystemElement> elements = stream(values).map(value -> {
 
-                Tracelog.log(Level.INFO, true, String.format("Serialize Key: %s", entryType.className));
-                Tracelog.log(Level.INFO, true, String.format("Serialize Value: %s", entryType.classValue));
+            // Create a new type, and within that type store the class name 
+            // and the actual value as a serialized string
+            FileSystemElement entryType = new FileSystemElement(
+                    value._classType.getName(),
+                    value._value == null ? "" : value._value.serialize()
+                    );
 
-                // Add the new object into our new map type list
-                myMapType.ENTRIES.add(entryType);
+            Tracelog.log(Level.INFO, true, String.format("Serialize Key: %s", entryType.className));
+            Tracelog.log(Level.INFO, true, String.format("Serialize Value: %s", entryType.classValue));
 
-            }
-        }
+            return entryType;
+        }).collect(Collectors.toList());
+
+        // Create a new file system map type, and add the new elements into it
+        FileSystemWrapperList myMapType = new FileSystemWrapperList();
+        myMapType.ENTRIES.addAll(elements);
 
         // Return the newly populated map type
         return myMapType;
@@ -57,40 +102,76 @@ public class FileSystemAdapter<T extends ISerializable<String>> extends XmlAdapt
 
     @Override public Map<Class<T>, List<T>> unmarshal(FileSystemWrapperList data) throws Exception {
 
-        // Create the structure to store the specified information
-        Map<Class<T>, List<T>> structure = new HashMap();
-
-        // Go through each data entry element
+        // Get the class types from their string association, this is only done once per class type
+        Map<String, Class<T>> classTypes = new HashMap<>();
         for(FileSystemElement element : data.ENTRIES) {
-
-            // Get the class type from its string association
-            Class<T> classType = (Class<T>) Class.forName(element.className);
-
-            // If the structure does not have an entry for the specified class type
-            // then create a new entry with an empty list
-            if(!structure.containsKey(classType)) {
-
-                // Create the entry with an empty list
-                structure.put(classType, new ArrayList<T>());
+            if(!classTypes.containsKey(element.className)) {
+                classTypes.put(element.className, (Class<T>) Class.forName(element.className));
             }
+        }
 
-            // Create a codec for unmarshalling, using the class type
-            // to perform the unmarshalling 
-            XMLCodec codec = XMLCodec.createInstance(classType);
-
-            // Create a string stream and insert the XML contents of the already
-            // serialized class
-            StringReader reader = new StringReader(element.classValue);
-
-            // Get the codec's unmarshaller and inject the string stream into the 
-            // unmarshaller, casting back to the specified object serializable type
-            T entity = (T) codec.getUnmarshaller().unmarshal(reader);
+        // Unmarshal every element into its value, the order of the collected
+        // values is the same as the order of the elements
+        List<Value<T>> values;
+        try {
+            values = stream(data.ENTRIES).map(element -> unmarshal(classTypes.get(element.className), element.classValue)).collect(Collectors.toList());
+        }
+        catch(IllegalStateException exception) {
+            throw exception.getCause() instanceof Exception ? (Exception) exception.getCause() : exception;
+        }
 
-            // Insert the entity into the structure
-            structure.get(classType).add(entity);
+        // Create the structure to store the specified information, the values are inserted in
+        // document order so that every list holds its values in the order that they were written
+        Map<Class<T>, List<T>> structure = new LinkedHashMap<>();
+        for(Value<T> value : values) {
+            structure.computeIfAbsent(value._classType, key -> new ArrayList<T>()).add(value._value);
         }
 
         // return the structure back to the adapter caller
         return structure;
-    }	
+    }
+
+    /**
+     * Unmarshals the specified serialized value
+     * 
+     * Note: This can be called from any thread, every thread uses its own codec
+     *
+     * @param classType The class type of the value
+     * @param classValue The serialized value
+     * 
+     * @return The value
+     * 
+     * @throws IllegalStateException If the value could not be unmarshalled, the cause holds the reason
+     */
+    private Value<T> unmarshal(Class<T> classType, String classValue) {
+
+        // Get the codec of this thread for unmarshalling, using the class type
+        // to perform the unmarshalling 
+        XMLCodec codec = XMLCodec.getThreadInstance(classType);
+
+        // Create a string stream and insert the XML contents of the already
+        // serialized class
+        StringReader reader = new StringReader(classValue);
+
+        // Get the codec's unmarshaller and inject the string stream into the 
+        // unmarshaller, casting back to the specified object serializable type
+        try {
+            return new Value<>(classType, (T) codec.getUnmarshaller().unmarshal(reader));
+        }
+        catch(Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Gets a stream over the specified list, the stream is parallel when there is enough work to be done
+     *
+     * @param list The list
+     * @param <E> The type of the list elements
+     * 
+     * @return The stream of the list
+     */
+    private static <E> Stream<E> stream(List<E> list) {
+        return list.size() < PARALLEL_THRESHOLD ? list.stream() : list.parallelStream();
+    }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package framework.communication.internal.persistance;
 
 import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import javax.xml.bind.JAXBContext;
@@ -30,6 +33,20 @@ public interface IXMLCodec extends ISerializable<String> {
      */
     public final class XMLCodec {
 
+        /**
+         * The codecs that have been created by each thread, for each class type
+         * 
+         * Note: Marshallers and unmarshallers cannot be shared between threads
+         */
+        private static final ThreadLocal<Map<Class<?>, XMLCodec>> _threadCodecs = ThreadLocal.withInitial(HashMap::new);
+
+        /**
+         * The JAXB contexts of every class type
+         *
+         * Note: Creating a context is costly and a context can be shared between threads, so only one is ever created per class type
+         */
+        private static final Map<Class<?>, JAXBContext> _contexts = new ConcurrentHashMap<>();
+
         /**
          * The JAXB Context
          */
@@ -54,11 +71,33 @@ public interface IXMLCodec extends ISerializable<String> {
          * @throws JAXBException If an error occured during the instance creation 
          */
         protected XMLCodec(Class classObject) throws JAXBException {
-            _context = JAXBContext.newInstance(classObject);
+            _context = getContext(classObject);
             _marshaller = _context.createMarshaller();
             _unmarshaller = _context.createUnmarshaller();
         }
 
+        /**
+         * Gets the JAXB context of the specified class type, the context is only ever created once per class type
+         *
+         * @param classObject The class object type
+         *
+         * @return The JAXB context
+         *
+         * @throws JAXBException If the context could not be created
+         */
+        private static JAXBContext getContext(Class<?> classObject) throws JAXBException {
+            JAXBContext context = _contexts.get(classObject);
+            if(context == null) {
+                context = JAXBContext.newInstance(classObject);
+                JAXBContext previousContext = _contexts.putIfAbsent(classObject, context);
+                if(previousContext != null) {
+                    context = previousContext;
+                }
+            }
+
+            return context;
+        }
+
         /**
          * Creates a new instance of this class type
          *
@@ -76,6 +115,27 @@ public interface IXMLCodec extends ISerializable<String> {
             }
         }
 
+        /**
+         * Gets the codec of the calling thread for the specified class type, the codec is only ever created once
+         * per thread so this should be used when the same class type is processed many times
+         *
+         * @param classObject The class object type
+         * 
+         * @return An instance of the XML codec class
+         */
+        public static XMLCodec getThreadInstance(Class<?> classObject) {
+            Map<Class<?>, XMLCodec> codecs = _threadCodecs.get();
+            XMLCodec codec = codecs.get(classObject);
+            if(codec == null) {
+                codec = createInstance(classObject);
+                if(codec != null) {
+                    codecs.put(classObject, codec);
+                }
+            }
+
+            return codec;
+        }
+
         /**
          * Sets the formatting state of the JAXB context
          * 
@@ -110,8 +170,8 @@ public interface IXMLCodec extends ISerializable<String> {
         // Create a string buffer for the xml data
         StringWriter writer = new StringWriter();
         try {
-            // Create the XML codec
-            XMLCodec serializer = new XMLCodec(this.getClass());
+            // Get the XML codec of this thread, values of the same class type are often serialized one after the other
+            XMLCodec serializer = XMLCodec.getThreadInstance(this.getClass());
             serializer.setFormatted(true);
 
             // Get the marshaller and serialize this class
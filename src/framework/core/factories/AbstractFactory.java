@@ -1,7 +1,7 @@
 package framework.core.factories;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 
 import framework.utils.logging.Tracelog;
@@ -14,9 +14,10 @@ import framework.utils.logging.Tracelog;
 public abstract class AbstractFactory {
 
     /**
-     * The list of factories that have been constructed and that are still active 
+     * The list of factories that have been constructed and that are still active, factories can be
+     * retrieved from any thread such as the threads preloading the data
      */
-    static final List<AbstractFactory> FACTORIES = new ArrayList<>();
+    static final List<AbstractFactory> FACTORIES = new CopyOnWriteArrayList<>();
 
     /**
      * Resets the factory
@@ -76,23 +77,32 @@ public abstract class AbstractFactory {
         }
 
         // If execution gets to here, then it is assumed that 
-        // the factory being asked for has not been created yet 
-        T factory = null;
+        // the factory being asked for has not been created yet.  Another
+        // thread could be creating it at the same time so look again
+        synchronized(FACTORIES) {
+            for(AbstractFactory factory : FACTORIES) {
+                if(factory.getClass() == factoryClass) {
+                    return (T) factory;
+                }
+            }
 
-        try {
-            // Call the default constructor for the factory creation
-            factory = factoryClass.getConstructor().newInstance();
+            T factory = null;
 
-            // add the factory to the factories list so that 
-            // the reference is returned next time
-            FACTORIES.add(factory);
-        } 
-        catch (Exception exception) {
-            Tracelog.log(Level.SEVERE, false, exception);
-        }
+            try {
+                // Call the default constructor for the factory creation
+                factory = factoryClass.getConstructor().newInstance();
 
-        // Return the newly created factory reference
-        return factory;
+                // add the factory to the factories list so that 
+                // the reference is returned next time
+                FACTORIES.add(factory);
+            } 
+            catch (Exception exception) {
+                Tracelog.log(Level.SEVERE, false, exception);
+            }
+
+            // Return the newly created factory reference
+            return factory;
+        }
     }
 
     /**
@@ -2,25 +2,27 @@ package framework.core.factories;
 
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 
 import framework.api.IData;
 import framework.core.system.EngineProperties;
 import framework.core.system.EngineProperties.Property;
+import framework.utils.io.Paths;
 import framework.utils.logging.Tracelog;
 
 /**
@@ -48,9 +50,19 @@ public class DataFactory extends AbstractFactory {
     }
     
     /**
-     * A mapping of identifiers to associated data image
+     * A mapping of layer identifiers to the images of the data within that layer
      */
-    private final Map<UUID, List<DataElement>> _data = new HashMap();
+    private final Map<UUID, List<Image>> _data = new HashMap<>();
+
+    /**
+     * A mapping of data identifiers to their data element
+     */
+    private final Map<UUID, DataElement> _identifiers = new HashMap<>();
+
+    /**
+     * The pages of the data sheet that were decoded, by their page
+     */
+    private final Map<Integer, BufferedImage> _sheets = new HashMap<>();
     
     /**
      * Gets the data entity using the specified identifier
@@ -60,17 +72,19 @@ public class DataFactory extends AbstractFactory {
      * @return A data entity
      */
     public Image getDataEntity(UUID identifier) {
-        
-        Image img = null;
-        for(Entry<UUID, List<DataElement>> datas : _data.entrySet()) {
-            Optional<DataElement> dataEntity = datas.getValue().stream().filter(z -> z.data.getIdentifier().equals(identifier)).findFirst();
-            if(dataEntity.isPresent()) {
-                img = dataEntity.get().image;
-                break;
-            }
-        }
-        
-        return img; 
+        DataElement dataElement = _identifiers.get(identifier);
+        return dataElement == null ? null : dataElement.image;
+    }
+    
+    /**
+     * Gets the images of the data within the specified layer
+     *
+     * @param layer The identifier of the layer
+     * 
+     * @return The unmodifiable in-order list of images of the layer, or an empty list if there is no such layer
+     */
+    public List<Image> getLayerEntities(UUID layer) {
+        return _data.getOrDefault(layer, Collections.emptyList());
     }
     
     /**
@@ -85,44 +99,145 @@ public class DataFactory extends AbstractFactory {
     		return null;
     	}
 
-    	return Arrays.stream(identifiers).map(z -> getDataEntity(z)).collect(Collectors.toList());
+    	List<Image> images = new ArrayList<>(identifiers.length);
+    	for(UUID identifier : identifiers) {
+    		images.add(getDataEntity(identifier));
+    	}
+
+    	return images;
     }
 
     /**
      * Adds the specified data resources in this factory.  The current structure of the data resources
      * consists of a mapping of layer names to {@link IData} implemented concrete types
      * 
+     * Note: The resources are grouped into their layers in a single pass, and every page of the sheet is only
+     *       decoded once regardless of how many times this method is called
+     * 
      * @param resources The list of resources
      */
-    public void populateData(Collection<IData> resources)  {
+    public synchronized void populateData(Collection<IData> resources)  {
+        long start = System.nanoTime();
+        int sheets = _sheets.size();
 
-        // Get the list of layer UUID, make sure there are no duplicates
-        Set<UUID> layers = resources.stream().map(IData::getLayers).flatMap(Collection::stream).collect(Collectors.toSet());
-       
-        BufferedImage mainImage = null;
-        try {
-            mainImage = ImageIO.read(getClass().getResourceAsStream(EngineProperties.instance().getProperty(Property.DATA_PATH_SHEET)));    
+        // Data that shares the same area of the same page also shares the same image
+        Map<Integer, Map<Rectangle, Image>> slices = new HashMap<>();
+
+        // Go through the resources once, placing each resource within every layer that it belongs to
+        Map<UUID, List<Image>> layers = new LinkedHashMap<>();
+        for(IData resource : resources) {
+
+            // Every data is only held once, data that was already populated keeps its image
+            DataElement element = _identifiers.get(resource.getIdentifier());
+            if(element == null) {
+                BufferedImage sheet = getSheet(resource.getPage());
+                Image image = null;
+                if(sheet != null) {
+                    Point tl = resource.getTopLeft();
+                    Point br = resource.getBottomRight();
+                    Rectangle area = new Rectangle(tl.x, tl.y, br.x - tl.x, br.y - tl.y);
+                    Map<Rectangle, Image> pageSlices = slices.computeIfAbsent(resource.getPage(), z -> new HashMap<>());
+                    image = pageSlices.get(area);
+                    if(image == null) {
+                        image = getImageData(sheet, resource);
+                        pageSlices.put(area, image);
+                    }
+                }
+                element = new DataElement(resource, image);
+                _identifiers.put(resource.getIdentifier(), element);
+            }
+
+            // A layer that is listed more than once only holds the data once
+            List<UUID> resourceLayers = resource.getLayers();
+            for(int i = 0, size = resourceLayers.size(); i < size; ++i) {
+                if(resourceLayers.indexOf(resourceLayers.get(i)) == i) {
+                    layers.computeIfAbsent(resourceLayers.get(i), z -> new ArrayList<>()).add(element.image);
+                }
+            }
         }
-        catch(Exception exception) {
-            Tracelog.log(Level.SEVERE, false, exception);
+
+        // Layers that were already populated are extended with the new resources
+        for(Entry<UUID, List<Image>> layer : layers.entrySet()) {
+            List<Image> images = layer.getValue();
+            List<Image> existingImages = _data.get(layer.getKey());
+            if(existingImages != null) {
+                images.addAll(0, existingImages);
+            }
+            _data.put(layer.getKey(), Collections.unmodifiableList(Arrays.asList(images.toArray(new Image[images.size()]))));
         }
 
-        // Go through all the layers and look for the data that contains the specified UUID
-        for(UUID uuid : layers) {
-                    
-            List<DataElement> dataElements = new ArrayList();
-            for(IData dataElement : resources.parallelStream().filter(z -> z.getLayers().contains(uuid)).collect(Collectors.toList())) {
-                dataElements.add(new DataElement(dataElement, getImageData(mainImage, dataElement)));
+        Tracelog.log(Level.INFO, false, String.format(
+            "Populated %d data into %d layers in %d ms, %d pages of the sheet decoded",
+            resources.size(),
+            layers.size(),
+            (System.nanoTime() - start) / 1000000,
+            _sheets.size() - sheets
+        ));
+    }
+
+    /**
+     * Decodes the specified page of the data sheet before the data using it is populated, so that the pages
+     * can be decoded while the data is being read
+     * 
+     * Note: This can be called from any thread
+     * 
+     * @param page The page of the sheet, the first page is the main sheet
+     */
+    public void preloadSheet(int page) {
+        synchronized(this) {
+            if(_sheets.containsKey(page)) {
+                return;
             }
-            
-            _data.put(uuid, dataElements);
         }
-        
-        // Cleanup the mainImage contents
-        if(mainImage != null) {
-            mainImage.flush();
+
+        // The page is decoded without holding this factory, so that several pages are decoded at once
+        BufferedImage sheet = readSheet(page);
+        synchronized(this) {
+            _sheets.putIfAbsent(page, sheet);
         }
     }
+
+    /**
+     * Gets the specified page of the data sheet, every page is only decoded once
+     * 
+     * Note: The pages are kept after being decoded, this does not hold any additional memory
+     *       since the images of the data share the pixels of the page they were taken from
+     * 
+     * @param page The page of the sheet, the first page is the main sheet
+     * 
+     * @return The image of the sheet, or null if the sheet could not be read
+     */
+    private BufferedImage getSheet(int page) {
+        if(_sheets.containsKey(page)) {
+            return _sheets.get(page);
+        }
+
+        // A page that could not be read is not read again
+        BufferedImage sheet = readSheet(page);
+        _sheets.put(page, sheet);
+        return sheet;
+    }
+
+    /**
+     * Decodes the specified page of the data sheet
+     * 
+     * @param page The page of the sheet, the first page is the main sheet
+     * 
+     * @return The image of the sheet, or null if the sheet could not be read
+     */
+    private BufferedImage readSheet(int page) {
+        long start = System.nanoTime();
+        try(InputStream stream = getClass().getResourceAsStream(Paths.getPagePath(EngineProperties.instance().getProperty(Property.DATA_PATH_SHEET), page))) {
+            BufferedImage sheet = ImageIO.read(stream);
+            Tracelog.log(Level.INFO, false, String.format("Decoded page %d of the sheet in %d ms", page, (System.nanoTime() - start) / 1000000));
+            return sheet;
+        }
+        catch(Exception exception) {
+            Tracelog.log(Level.SEVERE, false, exception);
+        }
+
+        return null;
+    }
     
     private Image getImageData(BufferedImage image, IData data) {
         
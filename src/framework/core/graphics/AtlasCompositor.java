@@ -0,0 +1,77 @@
+package framework.core.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Draws images into an atlas.  The rectangles of an atlas never overlap, so every image is copied straight into
+ * the pixels of the atlas and the images are copied in parallel on the common fork-join pool
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ */
+public final class AtlasCompositor {
+
+    /**
+     * Constructs a new instance of this class type
+     */
+    private AtlasCompositor() {
+    }
+
+    /**
+     * Draws the specified images into the specified atlas
+     *
+     * Note: The atlas must be a new image of type {@link BufferedImage#TYPE_INT_ARGB}, and the rectangles must not overlap
+     *
+     * @param atlas The atlas to draw into
+     * @param images The images to draw, an image that is null is skipped
+     * @param placements The rectangle of every image within the atlas, in the same order as the images
+     */
+    public static void draw(BufferedImage atlas, List<Image> images, List<Rectangle> placements) {
+        if(atlas.getType() != BufferedImage.TYPE_INT_ARGB) {
+            throw new IllegalArgumentException("The atlas must be of type TYPE_INT_ARGB");
+        }
+
+        int[] pixels = ((DataBufferInt) atlas.getRaster().getDataBuffer()).getData();
+        int width = atlas.getWidth();
+
+        IntStream.range(0, images.size()).parallel().forEach(index -> {
+            Image image = images.get(index);
+            if(image != null) {
+                Rectangle placement = placements.get(index);
+                BufferedImage source = getImage(image, placement.width, placement.height);
+
+                // Every row of the image is written directly into its row within the atlas
+                for(int row = 0; row < placement.height; ++row) {
+                    source.getRGB(0, row, placement.width, 1, pixels, (placement.y + row) * width + placement.x, width);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the specified image with the specified size
+     *
+     * @param image The image
+     * @param width The width
+     * @param height The height
+     *
+     * @return The image if it already has the specified size, otherwise a scaled copy of the image
+     */
+    private static BufferedImage getImage(Image image, int width, int height) {
+        if(image instanceof BufferedImage && image.getWidth(null) == width && image.getHeight(null) == height) {
+            return (BufferedImage) image;
+        }
+
+        BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaledImage.createGraphics();
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+
+        return scaledImage;
+    }
+}
\ No newline at end of file
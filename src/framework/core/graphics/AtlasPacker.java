@@ -0,0 +1,380 @@
+package framework.core.graphics;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Packs rectangles into atlases that are as small as possible, using the maximal rectangles algorithm
+ *
+ * Note: An atlas does not have a fixed size, several atlas widths are tried and the one with the smallest
+ *       area is kept.  Rectangles are placed as close to the top of the atlas as possible, then as close to
+ *       the left of the atlas as possible.  When the rectangles do not all fit within the maximum size of an
+ *       atlas, the remaining rectangles are packed into additional pages
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ */
+public final class AtlasPacker {
+
+    /**
+     * The widths that are tried for atlases that are not a power of two, as factors of the square root of the
+     * area needed by all the rectangles
+     */
+    private static final double[] WIDTH_FACTORS = { 0.7, 0.8, 0.9, 1.0, 1.1, 1.2, 1.35, 1.5, 1.75, 2.0, 2.5, 3.0 };
+
+    /**
+     * The number of empty pixels between two rectangles
+     */
+    private final int _padding;
+
+    /**
+     * Indicates if the dimensions of the atlas must be a power of two
+     */
+    private final boolean _isPowerOfTwo;
+
+    /**
+     * The maximum width and height of a page
+     */
+    private final int _maximumSize;
+
+    /**
+     * The size of every page that was last packed
+     */
+    private final List<Dimension> _pageSizes = new ArrayList<>();
+
+    /**
+     * The page of every rectangle that was last packed
+     */
+    private int[] _pages = new int[0];
+
+    /**
+     * A single page that is being packed
+     */
+    private static final class Page {
+
+        /**
+         * The position of the rectangles placed on this page, by the index of the rectangle
+         */
+        private final Map<Integer, Rectangle> _placements = new LinkedHashMap<>();
+
+        /**
+         * The rectangles that did not fit on this page, by the index of the rectangle
+         */
+        private final List<Integer> _unplaced = new ArrayList<>();
+
+        /**
+         * The padded area of all the rectangles placed on this page
+         */
+        private long _area;
+
+        /**
+         * The size of this page
+         */
+        private Dimension _size;
+    }
+
+    /**
+     * Constructs a new instance of this class type, all the rectangles are packed into a single page
+     *
+     * @param padding The number of empty pixels between two rectangles
+     * @param isPowerOfTwo If the dimensions of the atlas must be a power of two
+     */
+    public AtlasPacker(int padding, boolean isPowerOfTwo) {
+        this(padding, isPowerOfTwo, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param padding The number of empty pixels between two rectangles
+     * @param isPowerOfTwo If the dimensions of the atlas must be a power of two
+     * @param maximumSize The maximum width and height of a page
+     */
+    public AtlasPacker(int padding, boolean isPowerOfTwo, int maximumSize) {
+        if(padding < 0) {
+            throw new IllegalArgumentException("Invalid padding " + padding);
+        }
+        if(maximumSize <= 0) {
+            throw new IllegalArgumentException("Invalid maximum size " + maximumSize);
+        }
+
+        _padding = padding;
+        _isPowerOfTwo = isPowerOfTwo;
+        _maximumSize = isPowerOfTwo ? Integer.highestOneBit(maximumSize) : maximumSize;
+    }
+
+    /**
+     * Packs the specified sizes into as few pages as possible
+     *
+     * Note: A rectangle that is larger than the maximum size of a page is placed on a page of its own
+     *
+     * @param sizes The sizes of the rectangles to pack
+     *
+     * @return The position of every rectangle within its page, in the same order as the specified sizes
+     */
+    public List<Rectangle> pack(List<Dimension> sizes) {
+
+        _pageSizes.clear();
+        _pages = new int[sizes.size()];
+        Rectangle[] placements = new Rectangle[sizes.size()];
+
+        // Larger rectangles are placed first, they are the hardest to fit
+        List<Integer> remaining = new ArrayList<>();
+        for(int i = 0; i < sizes.size(); ++i) {
+            remaining.add(i);
+        }
+        remaining.sort(Comparator.comparingInt((Integer index) -> -sizes.get(index).height).thenComparingInt(index -> -sizes.get(index).width));
+
+        while(!remaining.isEmpty()) {
+
+            // Try every candidate width and keep the page that holds the most, then the smallest page, then
+            // the most square page when several pages have the same area
+            Page best = null;
+            for(int width : getCandidateWidths(sizes, remaining)) {
+                Page page = pack(sizes, remaining, width);
+                if(best == null || page._area > best._area || (page._area == best._area && isSmaller(page._size, best._size))) {
+                    best = page;
+                }
+            }
+
+            // Nothing fits within a page, so the largest rectangle is given a page of its own
+            if(best._placements.isEmpty()) {
+                int index = remaining.get(0);
+                best._placements.put(index, new Rectangle(0, 0, sizes.get(index).width, sizes.get(index).height));
+                best._unplaced.remove(0);
+                best._size = getPageSize(best._placements.values());
+            }
+
+            for(Entry<Integer, Rectangle> placement : best._placements.entrySet()) {
+                placements[placement.getKey()] = placement.getValue();
+                _pages[placement.getKey()] = _pageSizes.size();
+            }
+
+            _pageSizes.add(best._size);
+            remaining = best._unplaced;
+        }
+
+        // There is always at least one page, even if it is empty
+        if(_pageSizes.isEmpty()) {
+            _pageSizes.add(new Dimension());
+        }
+
+        return new ArrayList<>(Arrays.asList(placements));
+    }
+
+    /**
+     * Gets the number of pages that were last packed
+     *
+     * @return The number of pages
+     */
+    public int getPageCount() {
+        return _pageSizes.size();
+    }
+
+    /**
+     * Gets the page of the specified rectangle that was last packed
+     *
+     * @param index The index of the rectangle
+     *
+     * @return The page of the rectangle
+     */
+    public int getPage(int index) {
+        return _pages[index];
+    }
+
+    /**
+     * Gets the size of the specified page that was last packed
+     *
+     * @param page The page
+     *
+     * @return The size of the page
+     */
+    public Dimension getSize(int page) {
+        return new Dimension(_pageSizes.get(page));
+    }
+
+    /**
+     * Indicates if the specified size is smaller than the other specified size
+     *
+     * @param size The size
+     * @param other The other size
+     *
+     * @return TRUE if the size has a smaller area, or the same area and is more square, FALSE otherwise
+     */
+    private static boolean isSmaller(Dimension size, Dimension other) {
+        long difference = (long) size.width * size.height - (long) other.width * other.height;
+        return difference < 0 || (difference == 0 && size.width + size.height < other.width + other.height);
+    }
+
+    /**
+     * Gets the widths of the page that should be tried
+     *
+     * @param sizes The sizes of the rectangles
+     * @param remaining The rectangles that remain to be packed
+     *
+     * @return The candidate widths
+     */
+    private List<Integer> getCandidateWidths(List<Dimension> sizes, List<Integer> remaining) {
+
+        long area = 0;
+        int maximumWidth = 0;
+        long totalWidth = 0;
+        for(int index : remaining) {
+            Dimension size = sizes.get(index);
+            area += (long)(size.width + _padding) * (size.height + _padding);
+            maximumWidth = Math.max(maximumWidth, size.width);
+            totalWidth += size.width + _padding;
+        }
+
+        int widestWidth = (int) Math.min(_maximumSize, Math.max(maximumWidth, totalWidth - _padding));
+
+        List<Integer> widths = new ArrayList<>();
+        if(_isPowerOfTwo) {
+            for(long width = nextPowerOfTwo(Math.min(maximumWidth, _maximumSize)); width < 2L * nextPowerOfTwo(widestWidth); width *= 2) {
+                widths.add((int) width);
+            }
+        }
+        else {
+            double side = Math.sqrt(area);
+            for(double factor : WIDTH_FACTORS) {
+                int width = Math.min(widestWidth, Math.max(maximumWidth, (int)Math.ceil(side * factor)));
+                if(!widths.contains(width)) {
+                    widths.add(width);
+                }
+            }
+        }
+
+        return widths;
+    }
+
+    /**
+     * Packs as many of the specified rectangles as possible into a page of the specified width
+     *
+     * @param sizes The sizes of the rectangles
+     * @param remaining The rectangles to pack, in the order that they should be placed
+     * @param width The width of the page
+     *
+     * @return The packed page
+     */
+    private Page pack(List<Dimension> sizes, List<Integer> remaining, int width) {
+
+        // Rectangles are padded on their right and bottom sides only, the padding of the rectangles
+        // along the right and bottom edges of the page is trimmed away afterwards
+        long height = 0;
+        for(int index : remaining) {
+            height += sizes.get(index).height + _padding;
+        }
+
+        List<Rectangle> freeRectangles = new ArrayList<>();
+        freeRectangles.add(new Rectangle(0, 0, width + _padding, (int) Math.max(1, Math.min(height, (long) _maximumSize + _padding))));
+
+        Page page = new Page();
+        for(int index : remaining) {
+            int paddedWidth = sizes.get(index).width + _padding;
+            int paddedHeight = sizes.get(index).height + _padding;
+
+            // Find the free rectangle where the rectangle would end up the closest to the top-left
+            Rectangle placement = null;
+            for(Rectangle freeRectangle : freeRectangles) {
+                if(paddedWidth <= freeRectangle.width && paddedHeight <= freeRectangle.height) {
+                    if(placement == null
+                        || freeRectangle.y + paddedHeight < placement.y + placement.height
+                        || (freeRectangle.y + paddedHeight == placement.y + placement.height && freeRectangle.x < placement.x)) {
+                        placement = new Rectangle(freeRectangle.x, freeRectangle.y, paddedWidth, paddedHeight);
+                    }
+                }
+            }
+
+            if(placement == null) {
+                page._unplaced.add(index);
+            }
+            else {
+                splitFreeRectangles(freeRectangles, placement);
+                page._placements.put(index, new Rectangle(placement.x, placement.y, sizes.get(index).width, sizes.get(index).height));
+                page._area += (long) paddedWidth * paddedHeight;
+            }
+        }
+
+        page._size = getPageSize(page._placements.values());
+        return page;
+    }
+
+    /**
+     * Removes the specified placement from the free rectangles, every free rectangle that overlaps the placement
+     * is replaced by the largest rectangles that surround the placement
+     *
+     * @param freeRectangles The free rectangles
+     * @param placement The area that is no longer free
+     */
+    private static void splitFreeRectangles(List<Rectangle> freeRectangles, Rectangle placement) {
+
+        List<Rectangle> splitRectangles = new ArrayList<>();
+        for(int i = freeRectangles.size() - 1; i >= 0; --i) {
+            Rectangle freeRectangle = freeRectangles.get(i);
+            if(!freeRectangle.intersects(placement)) {
+                continue;
+            }
+
+            freeRectangles.remove(i);
+            if(placement.x > freeRectangle.x) {
+                splitRectangles.add(new Rectangle(freeRectangle.x, freeRectangle.y, placement.x - freeRectangle.x, freeRectangle.height));
+            }
+            if(placement.x + placement.width < freeRectangle.x + freeRectangle.width) {
+                splitRectangles.add(new Rectangle(placement.x + placement.width, freeRectangle.y, freeRectangle.x + freeRectangle.width - placement.x - placement.width, freeRectangle.height));
+            }
+            if(placement.y > freeRectangle.y) {
+                splitRectangles.add(new Rectangle(freeRectangle.x, freeRectangle.y, freeRectangle.width, placement.y - freeRectangle.y));
+            }
+            if(placement.y + placement.height < freeRectangle.y + freeRectangle.height) {
+                splitRectangles.add(new Rectangle(freeRectangle.x, placement.y + placement.height, freeRectangle.width, freeRectangle.y + freeRectangle.height - placement.y - placement.height));
+            }
+        }
+        freeRectangles.addAll(splitRectangles);
+
+        // Remove the free rectangles that are held within another free rectangle
+        for(int i = freeRectangles.size() - 1; i >= 0; --i) {
+            for(int j = 0; j < freeRectangles.size(); ++j) {
+                if(i != j && freeRectangles.get(j).contains(freeRectangles.get(i))) {
+                    freeRectangles.remove(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the size of the page holding the specified placements
+     *
+     * @param placements The placements within the page
+     *
+     * @return The size of the page
+     */
+    private Dimension getPageSize(Collection<Rectangle> placements) {
+        int width = 0;
+        int height = 0;
+        for(Rectangle placement : placements) {
+            width = Math.max(width, placement.x + placement.width);
+            height = Math.max(height, placement.y + placement.height);
+        }
+
+        return _isPowerOfTwo ? new Dimension(nextPowerOfTwo(width), nextPowerOfTwo(height)) : new Dimension(width, height);
+    }
+
+    /**
+     * Gets the smallest power of two that is greater than or equal to the specified value
+     *
+     * @param value The value
+     *
+     * @return The power of two
+     */
+    private static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,450 @@
+package framework.core.graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import framework.utils.logging.Tracelog;
+
+/**
+ * A content addressed store of images.  Images that are identical are only ever held once, every
+ * user of an image holds a reference to the same stored image
+ *
+ * Note: Images are addressed by a hash of their pixels, or by a hash of their encoded bytes when they have not
+ *       been decoded yet.  Once an encoded image is decoded it is also addressed by the hash of its pixels, so that
+ *       it is shared with identical images that were created in memory.  Stored images are held weakly, so an image
+ *       that is no longer referenced by anything is removed from the store even if it was never released
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ */
+public final class ImageStore {
+
+    /**
+     * The format that images are encoded with
+     */
+    private static final String FORMAT = "png";
+
+    /**
+     * The singleton instance of this class type
+     */
+    private static ImageStore _instance;
+
+    /**
+     * The image writer of every thread, finding a writer is costly so every thread reuses its own
+     */
+    private static final ThreadLocal<ImageWriter> _writers = ThreadLocal.withInitial(() -> ImageIO.getImageWritersByFormatName(FORMAT).next());
+
+    /**
+     * The hexadecimal digits used when representing a hash
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The stored images, by their content hash
+     */
+    private final Map<String, StoredImageReference> _images = new HashMap<>();
+
+    /**
+     * The queue of stored images that are no longer referenced
+     */
+    private final ReferenceQueue<StoredImage> _queue = new ReferenceQueue<>();
+
+    /**
+     * An image held by the store
+     *
+     * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+     */
+    public static final class StoredImage {
+
+        /**
+         * The content hash of this image
+         */
+        private final String _hash;
+
+        /**
+         * The decoded image
+         */
+        private BufferedImage _image;
+
+        /**
+         * The encoded image
+         */
+        private byte[] _encodedImage;
+
+        /**
+         * The hash of the pixels of this image
+         */
+        private volatile String _pixelHash;
+
+        /**
+         * The number of references that have been acquired on this image
+         */
+        private int _references;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param hash The content hash of this image
+         * @param image The decoded image, or null
+         * @param encodedImage The encoded image, or null
+         */
+        private StoredImage(String hash, BufferedImage image, byte[] encodedImage) {
+            _hash = hash;
+            _pixelHash = image == null ? null : hash;
+            _image = image;
+            _encodedImage = encodedImage;
+        }
+
+        /**
+         * Gets the content hash of this image
+         *
+         * @return The content hash
+         */
+        public String getHash() {
+            return _hash;
+        }
+
+        /**
+         * Gets the decoded image, the image is decoded the first time that it is needed
+         *
+         * Note: The image is shared, it should not be drawn into
+         *
+         * @return The decoded image, or null if the image could not be decoded
+         */
+        public BufferedImage getImage() {
+            boolean isDecoded = false;
+            synchronized(this) {
+                if(_image == null && _encodedImage != null) {
+                    try {
+                        _image = ImageIO.read(new ByteArrayInputStream(_encodedImage));
+                        isDecoded = _image != null;
+                    }
+                    catch(Exception exception) {
+                        Tracelog.log(Level.SEVERE, false, exception);
+                    }
+                }
+            }
+
+            // Address the image by its pixels now that they are known, the store is never
+            // locked while this image is locked
+            if(isDecoded) {
+                instance().addPixelHash(this, getPixelHash());
+            }
+
+            return _image;
+        }
+
+        /**
+         * Gets the encoded image, the image is encoded the first time that it is needed
+         *
+         * Note: The bytes are shared, they should not be modified
+         *
+         * @return The PNG encoded bytes of the image, or null if the image could not be encoded
+         */
+        public synchronized byte[] getEncodedImage() {
+            if(_encodedImage == null && _image != null) {
+                try {
+                    _encodedImage = encode(_image);
+                }
+                catch(Exception exception) {
+                    Tracelog.log(Level.SEVERE, false, exception);
+                }
+            }
+
+            return _encodedImage;
+        }
+
+        /**
+         * Gets the hash of the pixels of this image, images with identical pixels have the same pixel hash
+         * even if one of them was stored from its encoded bytes
+         *
+         * @return The pixel hash, or null if the image could not be decoded
+         */
+        public synchronized String getPixelHash() {
+            if(_pixelHash == null) {
+                BufferedImage image = getImage();
+                if(image != null) {
+                    _pixelHash = ImageStore.getPixelHash(image);
+                }
+            }
+
+            return _pixelHash;
+        }
+
+        /**
+         * Gets the number of references that are held on this image
+         *
+         * @return The number of references
+         */
+        public int getReferences() {
+            return _references;
+        }
+    }
+
+    /**
+     * A weak reference to a stored image that remembers the hash it was stored with
+     */
+    private static final class StoredImageReference extends WeakReference<StoredImage> {
+
+        /**
+         * The content hash of the stored image
+         */
+        private final String _hash;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param image The stored image
+         * @param hash The content hash that the stored image is stored with
+         * @param queue The queue to register with
+         */
+        private StoredImageReference(StoredImage image, String hash, ReferenceQueue<StoredImage> queue) {
+            super(image, queue);
+            _hash = hash;
+        }
+    }
+
+    /**
+     * Constructs a new instance of this class type
+     */
+    private ImageStore() {
+    }
+
+    /**
+     * Gets the singleton instance reference of this class type
+     *
+     * @return The singleton reference of this class type
+     */
+    public static synchronized ImageStore instance() {
+        if(_instance == null) {
+            _instance = new ImageStore();
+        }
+        return _instance;
+    }
+
+    /**
+     * Acquires a reference on the stored image that is identical to the specified image, the image
+     * is added into the store if there is no identical image
+     *
+     * @param image The image
+     *
+     * @return The stored image
+     */
+    public StoredImage acquire(BufferedImage image) {
+        return acquire(getPixelHash(image), image, null);
+    }
+
+    /**
+     * Acquires a reference on the stored image that is identical to the specified encoded image, the
+     * image is added into the store if there is no identical image.  The image is not decoded
+     *
+     * @param encodedImage The PNG encoded bytes of the image
+     *
+     * @return The stored image
+     */
+    public StoredImage acquire(byte[] encodedImage) {
+        return acquire("png:" + hash(encodedImage), null, encodedImage);
+    }
+
+    /**
+     * Acquires another reference on the specified stored image
+     *
+     * @param storedImage The stored image
+     *
+     * @return The stored image
+     */
+    public synchronized StoredImage acquire(StoredImage storedImage) {
+        if(storedImage != null) {
+            ++storedImage._references;
+        }
+        return storedImage;
+    }
+
+    /**
+     * Acquires a reference on the stored image with the specified hash
+     *
+     * @param hash The content hash
+     * @param image The decoded image, or null
+     * @param encodedImage The encoded image, or null
+     *
+     * @return The stored image
+     */
+    private synchronized StoredImage acquire(String hash, BufferedImage image, byte[] encodedImage) {
+        removeUnreferenced();
+
+        StoredImageReference reference = _images.get(hash);
+        StoredImage storedImage = reference == null ? null : reference.get();
+        if(storedImage == null) {
+            storedImage = new StoredImage(hash, image, encodedImage);
+            _images.put(hash, new StoredImageReference(storedImage, hash, _queue));
+        }
+
+        ++storedImage._references;
+        return storedImage;
+    }
+
+    /**
+     * Addresses the specified stored image by the hash of its pixels.  When an identical image is already stored
+     * under that hash, the encoded hash of the specified image is addressed to the identical image instead, so that
+     * the next acquire of the same encoded bytes shares it
+     *
+     * @param storedImage The stored image
+     * @param pixelHash The hash of the pixels of the stored image
+     */
+    private synchronized void addPixelHash(StoredImage storedImage, String pixelHash) {
+        if(pixelHash == null || pixelHash.equals(storedImage._hash)) {
+            return;
+        }
+
+        removeUnreferenced();
+
+        StoredImageReference reference = _images.get(pixelHash);
+        StoredImage identicalImage = reference == null ? null : reference.get();
+        if(identicalImage == null) {
+            _images.put(pixelHash, new StoredImageReference(storedImage, pixelHash, _queue));
+        }
+        else if(identicalImage != storedImage) {
+            reference = _images.get(storedImage._hash);
+            if(reference != null && reference.get() == storedImage) {
+                _images.put(storedImage._hash, new StoredImageReference(identicalImage, storedImage._hash, _queue));
+            }
+        }
+    }
+
+    /**
+     * Releases a reference on the specified stored image, the image is removed from the store when nothing
+     * references it anymore
+     *
+     * @param storedImage The stored image
+     */
+    public synchronized void release(StoredImage storedImage) {
+        if(storedImage != null && --storedImage._references <= 0) {
+            remove(storedImage, storedImage._hash);
+            remove(storedImage, storedImage._pixelHash);
+        }
+    }
+
+    /**
+     * Removes the specified hash from the store if it addresses the specified stored image
+     *
+     * @param storedImage The stored image
+     * @param hash The content hash, or null
+     */
+    private void remove(StoredImage storedImage, String hash) {
+        StoredImageReference reference = hash == null ? null : _images.get(hash);
+        if(reference != null && reference.get() == storedImage) {
+            _images.remove(hash);
+        }
+    }
+
+    /**
+     * Gets the number of unique images within the store
+     *
+     * @return The number of unique images
+     */
+    public synchronized int size() {
+        removeUnreferenced();
+
+        Set<StoredImage> images = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(StoredImageReference reference : _images.values()) {
+            StoredImage storedImage = reference.get();
+            if(storedImage != null) {
+                images.add(storedImage);
+            }
+        }
+
+        return images.size();
+    }
+
+    /**
+     * Removes the images that have been garbage collected
+     */
+    private void removeUnreferenced() {
+        for(StoredImageReference reference; (reference = (StoredImageReference) _queue.poll()) != null;) {
+            if(_images.get(reference._hash) == reference) {
+                _images.remove(reference._hash);
+            }
+        }
+    }
+
+    /**
+     * Encodes the specified image using the image writer of the calling thread
+     *
+     * Note: The image is encoded in memory, no cache file is created while encoding
+     *
+     * @param image The image
+     *
+     * @return The PNG encoded bytes of the image
+     *
+     * @throws IOException If the image could not be encoded
+     */
+    public static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ImageWriter writer = _writers.get();
+        try(ImageOutputStream outputStream = new MemoryCacheImageOutputStream(stream)) {
+            writer.setOutput(outputStream);
+            writer.write(image);
+        }
+        finally {
+            writer.reset();
+        }
+
+        return stream.toByteArray();
+    }
+
+    /**
+     * Hashes the dimensions and the pixels of the specified image
+     *
+     * @param image The image
+     *
+     * @return The pixel hash of the image
+     */
+    private static String getPixelHash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        ByteBuffer buffer = ByteBuffer.allocate((pixels.length + 2) * Integer.BYTES);
+        buffer.putInt(width).putInt(height).asIntBuffer().put(pixels);
+
+        return "rgb:" + hash(buffer.array());
+    }
+
+    /**
+     * Hashes the specified bytes
+     *
+     * @param bytes The bytes to hash
+     *
+     * @return The hexadecimal representation of the hash
+     */
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            char[] hex = new char[digest.length * 2];
+            for(int i = 0; i < digest.length; ++i) {
+                hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+            }
+            return new String(hex);
+        }
+        catch(Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
\ No newline at end of file
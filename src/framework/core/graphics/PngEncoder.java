@@ -0,0 +1,670 @@
+package framework.core.graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encodes images as PNG with control over how the image is stored.  Images with few colors are stored with a
+ * palette, which is usually far smaller than storing every pixel, and images without any transparency are
+ * stored without their alpha channel.
+ *
+ * Note: An image is only stored with a palette when every one of its colors fits within the palette, unless
+ *       quantization is enabled in which case the colors of the image are reduced until they fit.  Pixels that
+ *       are fully transparent are stored as transparent black when a palette is used
+ *
+ * Note: The encoder holds no state while encoding, the same encoder can be used by several threads
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ */
+public final class PngEncoder {
+
+    /**
+     * The filter applied to the rows of an image before they are compressed
+     *
+     * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+     */
+    public enum Filter {
+
+        /**
+         * The rows are stored as is
+         */
+        NONE,
+
+        /**
+         * Every byte is stored as the difference with the byte to its left
+         */
+        SUB,
+
+        /**
+         * Every byte is stored as the difference with the byte above it
+         */
+        UP,
+
+        /**
+         * Every byte is stored as the difference with the average of the bytes to its left and above it
+         */
+        AVERAGE,
+
+        /**
+         * Every byte is stored as the difference with the closest of the bytes to its left, above it, and to the left of that
+         */
+        PAETH,
+
+        /**
+         * Every row uses the filter that is expected to compress it best unless not filtering at all compresses
+         * better, images with a palette are not filtered
+         */
+        ADAPTIVE
+    }
+
+    /**
+     * The signature that every PNG starts with
+     */
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    /**
+     * The maximum number of colors of a palette
+     */
+    private static final int MAXIMUM_COLORS = 256;
+
+    /**
+     * The number of pixels below which an image is also encoded without a palette, in case that is smaller
+     */
+    private static final int SMALL_IMAGE_PIXELS = 64 * 64;
+
+    /**
+     * The color type of images stored with a palette
+     */
+    private static final int COLOR_TYPE_PALETTE = 3;
+
+    /**
+     * The color type of images stored with red, green and blue
+     */
+    private static final int COLOR_TYPE_RGB = 2;
+
+    /**
+     * The color type of images stored with red, green, blue and alpha
+     */
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    /**
+     * The compression level of the image data
+     */
+    private int _compressionLevel = Deflater.BEST_COMPRESSION;
+
+    /**
+     * The filter applied to the rows of an image
+     */
+    private Filter _filter = Filter.ADAPTIVE;
+
+    /**
+     * Indicates if images with few enough colors are stored with a palette
+     */
+    private boolean _isIndexed = true;
+
+    /**
+     * Indicates if the colors of an image are reduced so that they fit within a palette
+     */
+    private boolean _isQuantized;
+
+    /**
+     * Sets the compression level of the image data
+     *
+     * @param compressionLevel The compression level, from 0 for no compression to 9 for the best compression
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if(compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("The compression level must be between 0 and 9, received " + compressionLevel);
+        }
+        _compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Sets the filter applied to the rows of an image before they are compressed
+     *
+     * @param filter The filter
+     */
+    public void setFilter(Filter filter) {
+        _filter = filter;
+    }
+
+    /**
+     * Sets if images with few enough colors are stored with a palette, this never changes the colors of an image
+     *
+     * @param isIndexed If images should be stored with a palette when possible
+     */
+    public void setIndexed(boolean isIndexed) {
+        _isIndexed = isIndexed;
+    }
+
+    /**
+     * Sets if the colors of an image are reduced so that they fit within a palette, this changes the colors
+     * of images that have too many colors
+     *
+     * Note: This only applies when images are stored with a palette
+     *
+     * @param isQuantized If the colors of an image should be reduced
+     */
+    public void setQuantized(boolean isQuantized) {
+        _isQuantized = isQuantized;
+    }
+
+    /**
+     * Gets the settings of this encoder, two encoders with the same settings produce the same images
+     *
+     * @return The settings of this encoder
+     */
+    public String getSettings() {
+        return String.format("level=%d;filter=%s;indexed=%b;quantized=%b", _compressionLevel, _filter, _isIndexed, _isQuantized);
+    }
+
+    /**
+     * Encodes the specified image and writes it into the specified file
+     *
+     * @param image The image
+     * @param file The file to write into
+     *
+     * @throws IOException If the image could not be written
+     */
+    public void write(BufferedImage image, File file) throws IOException {
+        Files.write(file.toPath(), encode(image));
+    }
+
+    /**
+     * Encodes the specified image
+     *
+     * @param image The image
+     *
+     * @return The PNG encoded bytes of the image
+     *
+     * @throws IOException If the image could not be encoded
+     */
+    public byte[] encode(BufferedImage image) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        int[] palette = _isIndexed ? getPalette(pixels) : null;
+        byte[] encoded = encode(width, height, pixels, palette);
+
+        // The palette takes most of the space of a small image, it is also encoded without one and the smallest is kept
+        if(palette != null && pixels.length <= SMALL_IMAGE_PIXELS) {
+            byte[] trueColor = encode(width, height, pixels, null);
+            if(trueColor.length < encoded.length) {
+                encoded = trueColor;
+            }
+        }
+
+        return encoded;
+    }
+
+    /**
+     * Encodes the specified pixels
+     *
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param pixels The pixels of the image
+     * @param palette The colors of the palette, or null if the pixels are stored with their colors
+     *
+     * @return The PNG encoded bytes of the image
+     *
+     * @throws IOException If the image could not be encoded
+     */
+    private byte[] encode(int width, int height, int[] pixels, int[] palette) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(SIGNATURE);
+
+        if(palette != null) {
+            writePalette(stream, width, height, pixels, palette);
+        }
+        else {
+            writeTrueColor(stream, width, height, pixels);
+        }
+
+        writeChunk(stream, "IEND", new byte[0]);
+        return stream.toByteArray();
+    }
+
+    /**
+     * Gets the palette of the specified pixels
+     *
+     * @param pixels The pixels
+     *
+     * @return The colors of the palette with the translucent colors first, or null if the pixels cannot be stored with a palette
+     */
+    private int[] getPalette(int[] pixels) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for(int pixel : pixels) {
+            counts.merge(getPaletteColor(pixel), 1, Integer::sum);
+            if(counts.size() > MAXIMUM_COLORS && !_isQuantized) {
+                return null;
+            }
+        }
+
+        int[] palette = counts.size() > MAXIMUM_COLORS
+            ? quantize(counts)
+            : counts.keySet().stream().mapToInt(Integer::intValue).toArray();
+
+        // The translucent colors come first so that the alpha of the opaque colors does not need to be stored
+        return Arrays.stream(palette).boxed().sorted((first, second) -> Boolean.compare((first >>> 24) == 0xFF, (second >>> 24) == 0xFF)).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Gets the color of the specified pixel as it is stored within a palette
+     *
+     * @param pixel The pixel
+     *
+     * @return The color, every fully transparent pixel has the same color
+     */
+    private static int getPaletteColor(int pixel) {
+        return (pixel >>> 24) == 0 ? 0 : pixel;
+    }
+
+    /**
+     * Reduces the specified colors into a palette by repeatedly splitting the group of colors that spans
+     * the widest range in half, every group of colors is then represented by its average color
+     *
+     * @param counts The number of pixels of every color
+     *
+     * @return The colors of the palette
+     */
+    private static int[] quantize(Map<Integer, Integer> counts) {
+        List<int[]> boxes = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        boxes.add(counts.keySet().stream().mapToInt(Integer::intValue).toArray());
+        ranges.add(getWidestChannel(boxes.get(0)));
+
+        while(boxes.size() < MAXIMUM_COLORS) {
+
+            // Find the group with the widest range of values
+            int boxIndex = -1;
+            for(int i = 0; i < boxes.size(); ++i) {
+                if(ranges.get(i)[1] > 0 && (boxIndex == -1 || ranges.get(i)[1] > ranges.get(boxIndex)[1])) {
+                    boxIndex = i;
+                }
+            }
+
+            // Every group holds a single color
+            if(boxIndex == -1) {
+                break;
+            }
+
+            // Split the group at the median of its pixels along the widest channel
+            int shift = ranges.get(boxIndex)[0];
+            int[] box = Arrays.stream(boxes.get(boxIndex)).boxed().sorted((first, second) -> ((first >>> shift) & 0xFF) - ((second >>> shift) & 0xFF)).mapToInt(Integer::intValue).toArray();
+            long total = Arrays.stream(box).mapToLong(counts::get).sum();
+            long accumulated = 0;
+            int split = 1;
+            for(; split < box.length - 1; ++split) {
+                accumulated += counts.get(box[split - 1]);
+                if(accumulated * 2 >= total) {
+                    break;
+                }
+            }
+
+            boxes.set(boxIndex, Arrays.copyOfRange(box, 0, split));
+            boxes.add(Arrays.copyOfRange(box, split, box.length));
+            ranges.set(boxIndex, getWidestChannel(boxes.get(boxIndex)));
+            ranges.add(getWidestChannel(boxes.get(boxes.size() - 1)));
+        }
+
+        int[] palette = new int[boxes.size()];
+        for(int i = 0; i < palette.length; ++i) {
+            long[] sums = new long[4];
+            long total = 0;
+            for(int color : boxes.get(i)) {
+                int count = counts.get(color);
+                for(int channel = 0; channel < 4; ++channel) {
+                    sums[channel] += (long) ((color >>> (channel * 8)) & 0xFF) * count;
+                }
+                total += count;
+            }
+            for(int channel = 0; channel < 4; ++channel) {
+                palette[i] |= (int) ((sums[channel] + total / 2) / total) << (channel * 8);
+            }
+        }
+
+        return palette;
+    }
+
+    /**
+     * Gets the channel of the specified colors that spans the widest range of values
+     *
+     * @param colors The colors
+     *
+     * @return The shift of the channel followed by its range of values
+     */
+    private static int[] getWidestChannel(int[] colors) {
+        int[] widest = new int[2];
+        for(int shift = 0; shift < 32; shift += 8) {
+            int minimum = 255;
+            int maximum = 0;
+            for(int color : colors) {
+                int value = (color >>> shift) & 0xFF;
+                minimum = Math.min(minimum, value);
+                maximum = Math.max(maximum, value);
+            }
+            if(maximum - minimum > widest[1]) {
+                widest[0] = shift;
+                widest[1] = maximum - minimum;
+            }
+        }
+
+        return widest;
+    }
+
+    /**
+     * Writes the specified pixels using the specified palette
+     *
+     * @param stream The stream to write into
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param pixels The pixels of the image
+     * @param palette The colors of the palette
+     *
+     * @throws IOException If the image could not be written
+     */
+    private void writePalette(OutputStream stream, int width, int height, int[] pixels, int[] palette) throws IOException {
+
+        // Every color is given the index of the palette color that is closest to it
+        Map<Integer, Integer> indices = new HashMap<>();
+        for(int i = 0; i < palette.length; ++i) {
+            indices.put(palette[i], i);
+        }
+
+        // Use the smallest bit depth that can index every color of the palette
+        int bitDepth = palette.length <= 2 ? 1 : palette.length <= 4 ? 2 : palette.length <= 16 ? 4 : 8;
+        int stride = (width * bitDepth + 7) / 8;
+        byte[] data = new byte[stride * height];
+        for(int y = 0; y < height; ++y) {
+            for(int x = 0; x < width; ++x) {
+                int index = indices.computeIfAbsent(getPaletteColor(pixels[y * width + x]), z -> getClosest(palette, z));
+                int bit = x * bitDepth;
+                data[y * stride + bit / 8] |= index << (8 - bitDepth - bit % 8);
+            }
+        }
+
+        byte[] colors = new byte[palette.length * 3];
+        int translucent = 0;
+        for(int i = 0; i < palette.length; ++i) {
+            colors[i * 3] = (byte) (palette[i] >>> 16);
+            colors[i * 3 + 1] = (byte) (palette[i] >>> 8);
+            colors[i * 3 + 2] = (byte) palette[i];
+            if((palette[i] >>> 24) != 0xFF) {
+                translucent = i + 1;
+            }
+        }
+
+        writeHeader(stream, width, height, bitDepth, COLOR_TYPE_PALETTE);
+        writeChunk(stream, "PLTE", colors);
+        if(translucent > 0) {
+            byte[] alphas = new byte[translucent];
+            for(int i = 0; i < translucent; ++i) {
+                alphas[i] = (byte) (palette[i] >>> 24);
+            }
+            writeChunk(stream, "tRNS", alphas);
+        }
+        writeData(stream, data, stride, 1, true);
+    }
+
+    /**
+     * Gets the index of the palette color closest to the specified color
+     *
+     * @param palette The colors of the palette
+     * @param color The color
+     *
+     * @return The index of the closest color
+     */
+    private static int getClosest(int[] palette, int color) {
+        int closest = 0;
+        long closestDistance = Long.MAX_VALUE;
+        for(int i = 0; i < palette.length; ++i) {
+            long distance = 0;
+            for(int shift = 0; shift < 32; shift += 8) {
+                int difference = ((palette[i] >>> shift) & 0xFF) - ((color >>> shift) & 0xFF);
+                distance += difference * difference;
+            }
+            if(distance < closestDistance) {
+                closest = i;
+                closestDistance = distance;
+            }
+        }
+
+        return closest;
+    }
+
+    /**
+     * Writes the specified pixels with their colors, the alpha is only written if a pixel is not opaque
+     *
+     * @param stream The stream to write into
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param pixels The pixels of the image
+     *
+     * @throws IOException If the image could not be written
+     */
+    private void writeTrueColor(OutputStream stream, int width, int height, int[] pixels) throws IOException {
+        boolean isOpaque = Arrays.stream(pixels).allMatch(z -> (z >>> 24) == 0xFF);
+        int channels = isOpaque ? 3 : 4;
+        int stride = width * channels;
+
+        byte[] data = new byte[stride * height];
+        for(int i = 0, offset = 0; i < pixels.length; ++i) {
+            data[offset++] = (byte) (pixels[i] >>> 16);
+            data[offset++] = (byte) (pixels[i] >>> 8);
+            data[offset++] = (byte) pixels[i];
+            if(!isOpaque) {
+                data[offset++] = (byte) (pixels[i] >>> 24);
+            }
+        }
+
+        writeHeader(stream, width, height, 8, isOpaque ? COLOR_TYPE_RGB : COLOR_TYPE_RGBA);
+        writeData(stream, data, stride, channels, false);
+    }
+
+    /**
+     * Writes the header of an image
+     *
+     * @param stream The stream to write into
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param bitDepth The number of bits of every sample
+     * @param colorType The color type of the image
+     *
+     * @throws IOException If the header could not be written
+     */
+    private static void writeHeader(OutputStream stream, int width, int height, int bitDepth, int colorType) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width);
+        header.putInt(height);
+        header.put((byte) bitDepth);
+        header.put((byte) colorType);
+        header.put((byte) 0);
+        header.put((byte) 0);
+        header.put((byte) 0);
+        writeChunk(stream, "IHDR", header.array());
+    }
+
+    /**
+     * Filters and compresses the specified rows, and writes them as the data of an image
+     *
+     * @param stream The stream to write into
+     * @param data The rows of the image
+     * @param stride The number of bytes of every row
+     * @param pixelSize The number of bytes of every pixel, this is one when a pixel has less than a byte
+     * @param isPalette If the image is stored with a palette
+     *
+     * @throws IOException If the data could not be written
+     */
+    private void writeData(OutputStream stream, byte[] data, int stride, int pixelSize, boolean isPalette) throws IOException {
+        byte[] compressed;
+        if(_filter != Filter.ADAPTIVE) {
+            compressed = compress(data, stride, pixelSize, _filter);
+        }
+        else if(isPalette) {
+            compressed = compress(data, stride, pixelSize, Filter.NONE);
+        }
+        else {
+
+            // Choosing a filter for every row does not always compress better than not filtering at all, both are
+            // compressed and the smallest is kept
+            compressed = compress(data, stride, pixelSize, Filter.ADAPTIVE);
+            byte[] unfiltered = compress(data, stride, pixelSize, Filter.NONE);
+            if(unfiltered.length < compressed.length) {
+                compressed = unfiltered;
+            }
+        }
+
+        writeChunk(stream, "IDAT", compressed);
+    }
+
+    /**
+     * Filters and compresses the specified rows
+     *
+     * @param data The rows of the image
+     * @param stride The number of bytes of every row
+     * @param pixelSize The number of bytes of every pixel, this is one when a pixel has less than a byte
+     * @param filter The filter applied to the rows
+     *
+     * @return The compressed rows
+     *
+     * @throws IOException If the rows could not be compressed
+     */
+    private byte[] compress(byte[] data, int stride, int pixelSize, Filter filter) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(_compressionLevel);
+        try(DeflaterOutputStream deflaterStream = new DeflaterOutputStream(compressed, deflater, 64 * 1024)) {
+            byte[][] filtered = new byte[Filter.ADAPTIVE.ordinal()][stride];
+            for(int row = 0, rows = stride == 0 ? 0 : data.length / stride; row < rows; ++row) {
+                int rowFilter = filter.ordinal();
+                if(filter == Filter.ADAPTIVE) {
+
+                    // Use the filter whose bytes are the smallest, this is usually the one that compresses best
+                    long smallest = Long.MAX_VALUE;
+                    for(int candidate = 0; candidate < filtered.length; ++candidate) {
+                        long sum = filter(data, row, stride, pixelSize, candidate, filtered[candidate]);
+                        if(sum < smallest) {
+                            smallest = sum;
+                            rowFilter = candidate;
+                        }
+                    }
+                }
+                else {
+                    filter(data, row, stride, pixelSize, rowFilter, filtered[rowFilter]);
+                }
+
+                deflaterStream.write(rowFilter);
+                deflaterStream.write(filtered[rowFilter]);
+            }
+        }
+        finally {
+            deflater.end();
+        }
+
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Filters the specified row
+     *
+     * @param data The rows of the image
+     * @param row The row to filter
+     * @param stride The number of bytes of every row
+     * @param pixelSize The number of bytes of every pixel
+     * @param filter The filter to apply
+     * @param output The filtered row
+     *
+     * @return The sum of the absolute values of the filtered bytes
+     */
+    private static long filter(byte[] data, int row, int stride, int pixelSize, int filter, byte[] output) {
+        int offset = row * stride;
+        long sum = 0;
+        for(int i = 0; i < stride; ++i) {
+            int current = data[offset + i] & 0xFF;
+            int left = i >= pixelSize ? data[offset + i - pixelSize] & 0xFF : 0;
+            int up = row > 0 ? data[offset + i - stride] & 0xFF : 0;
+            int upLeft = row > 0 && i >= pixelSize ? data[offset + i - stride - pixelSize] & 0xFF : 0;
+
+            int predictor;
+            switch(filter) {
+            case 1:
+                predictor = left;
+                break;
+            case 2:
+                predictor = up;
+                break;
+            case 3:
+                predictor = (left + up) / 2;
+                break;
+            case 4:
+                predictor = paeth(left, up, upLeft);
+                break;
+            default:
+                predictor = 0;
+                break;
+            }
+
+            output[i] = (byte) (current - predictor);
+            sum += Math.abs(output[i]);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Gets the Paeth predictor of a byte
+     *
+     * @param left The byte to the left
+     * @param up The byte above
+     * @param upLeft The byte above and to the left
+     *
+     * @return The predictor
+     */
+    private static int paeth(int left, int up, int upLeft) {
+        int estimate = left + up - upLeft;
+        int leftDistance = Math.abs(estimate - left);
+        int upDistance = Math.abs(estimate - up);
+        int upLeftDistance = Math.abs(estimate - upLeft);
+        if(leftDistance <= upDistance && leftDistance <= upLeftDistance) {
+            return left;
+        }
+
+        return upDistance <= upLeftDistance ? up : upLeft;
+    }
+
+    /**
+     * Writes a chunk
+     *
+     * @param stream The stream to write into
+     * @param type The type of the chunk
+     * @param data The data of the chunk
+     *
+     * @throws IOException If the chunk could not be written
+     */
+    private static void writeChunk(OutputStream stream, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        stream.write(ByteBuffer.allocate(4).putInt(data.length).array());
+        stream.write(typeBytes);
+        stream.write(data);
+        stream.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+}
\ No newline at end of file
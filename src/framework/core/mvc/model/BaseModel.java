@@ -4,6 +4,7 @@ import java.awt.Image;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -61,6 +62,14 @@ public abstract class BaseModel implements IModel, IRenderable
      */
     private transient boolean _suppressUpdates;
 
+    /**
+     * The number of modifications that have been made to this model.  This only ever increases, so a
+     * consumer can remember the revision it last saw and later compare it to know if this model changed
+     *
+     * Note: The revision is read by other threads, such as when autosaving, while it is being modified
+     */
+    private transient final AtomicLong _revision = new AtomicLong();
+
     /**
      * Constructs a new instance of this class type
      */
@@ -172,6 +181,8 @@ public abstract class BaseModel implements IModel, IRenderable
     }
     
     @Override public void refresh(String operationName) {
+        incrementRevision();
+
         // Do not continue with the update if there is a suppression
         // of the updates
         if(isSuppressingUpdates()) {
@@ -215,6 +226,24 @@ public abstract class BaseModel implements IModel, IRenderable
      * and that this model should notify its receivers by issuing a signal
      */
     public final void doneUpdating() {
+        incrementRevision();
+        notifyUpdate();
+    }
+
+    /**
+     * A convenience method to indicate that the state of this model has changed and that this model should
+     * notify its receivers by issuing a signal, without the change counting as a modification
+     *
+     * Note: Use this for changes that are not part of the data of this model, such as its selection
+     */
+    protected final void doneUpdatingState() {
+        notifyUpdate();
+    }
+
+    /**
+     * Notifies the receivers of this model of the operation that was performed
+     */
+    private void notifyUpdate() {
 
         // Do not continue with the update if there is a suppression
         // of the updates
@@ -240,6 +269,24 @@ public abstract class BaseModel implements IModel, IRenderable
         _operationEvent = null;
     }
 
+    /**
+     * Indicates that this model has been modified
+     * 
+     * Note: Updating a model already does this, use this when a model is modified without notifying its listeners
+     */
+    protected final void incrementRevision() {
+        _revision.incrementAndGet();
+    }
+
+    /**
+     * Gets the revision of this model, this changes every time that this model is modified
+     * 
+     * @return The revision of this model
+     */
+    public final long getRevision() {
+        return _revision.get();
+    }
+
     /**
      * Sets a particular operation name that will be converted into a signal and
      * dispatched to all signal receivers of this model
@@ -263,6 +310,17 @@ public abstract class BaseModel implements IModel, IRenderable
         return _uuid;
     }
 
+    /**
+     * Sets the universally unique identifier of this model
+     *
+     * Note: This should only be used when restoring a model that was persisted
+     *
+     * @param uuid The universally unique identifier
+     */
+    public final void setUUID(UUID uuid) {
+        _uuid = uuid;
+    }
+
     @Override public void copyData(IModel model) {
         _uuid = model.getUUID();
     }
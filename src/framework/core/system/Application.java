@@ -4,12 +4,17 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 import javax.swing.JFrame;
 import javax.swing.JMenuBar;
+import javax.swing.JProgressBar;
+import javax.swing.JWindow;
+import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 
+import framework.communication.external.builder.BinaryDataBuilder;
 import framework.communication.external.builder.DataBuilder;
 import framework.communication.external.builder.Director;
 import framework.core.system.EngineProperties.Property;
@@ -43,6 +48,11 @@ public class Application extends JFrame implements WindowListener {
      * The running time of engine
      */
     private long runningTime = System.nanoTime();
+
+    /**
+     * The future that completes once the data entities are loaded
+     */
+    private final CompletableFuture<Boolean> dataLoaded;
     
     /**
      * Constructs a new instance of this class type
@@ -70,15 +80,33 @@ public class Application extends JFrame implements WindowListener {
         Tracelog.log(Level.INFO, false, "Load Data Entities Started");
         if(!EngineProperties.instance().hasDataValues()) {
             Tracelog.log(Level.WARNING, false, "Cannot load the data files, no data values specified");
+            dataLoaded = CompletableFuture.completedFuture(false);
+        }
+        else if(EngineProperties.instance().getIsPropertyValid(Property.DATA_PRELOAD)) {
+
+            // The data is loaded in the background so that the application can be shown right away
+            if(EngineProperties.instance().getIsPropertyValid(Property.DATA_PRELOAD_SPLASH)) {
+                JProgressBar progressBar = new JProgressBar();
+                JWindow splash = createSplash(progressBar);
+                dataLoaded = new DataPreloader((completed, total) -> SwingUtilities.invokeLater(() -> progressBar.setValue(completed * 100 / total))).start();
+                dataLoaded.whenComplete((isLoaded, exception) -> SwingUtilities.invokeLater(splash::dispose));
+            }
+            else {
+                dataLoaded = new DataPreloader(null).start();
+            }
         }
         else {
             // Get the start time
             long startTimeData = System.nanoTime();
             
+            boolean isLoaded = false;
             try {
-                // Create a director and use the data builder to extract content
-                new Director(
-                    new DataBuilder(EngineProperties.instance().getProperty(Property.DATA_PATH_XML))
+                // Create a director and use the data builder to extract content, the packed data is
+                // preferred since it does not need to be unmarshalled
+                String packedPath = EngineProperties.instance().getProperty(Property.DATA_PATH_PACKED);
+                isLoaded = new Director(packedPath != null
+                    ? new BinaryDataBuilder(packedPath)
+                    : new DataBuilder(EngineProperties.instance().getProperty(Property.DATA_PATH_XML))
                 ).construct();
             }
             catch (Exception exception) {
@@ -87,6 +115,7 @@ public class Application extends JFrame implements WindowListener {
             finally {
                 Tracelog.log(Level.INFO, false, "Load Data Entities Finished - " + ((System.nanoTime() - startTimeData) / 1000000) + "ms");
             }
+            dataLoaded = CompletableFuture.completedFuture(isLoaded);
         }
         Tracelog.log(Level.INFO, false, "Engine Initialization Finished - " + ((System.nanoTime() - startTimeMain) / 1000000) + "ms");
                     
@@ -96,6 +125,33 @@ public class Application extends JFrame implements WindowListener {
         }
     }
     
+    /**
+     * Gets the future that completes once the data entities are loaded, when the data is loaded in the
+     * background the data entities must not be used before this completes
+     * 
+     * @return The future that completes with TRUE if the data entities were loaded, FALSE otherwise
+     */
+    public CompletableFuture<Boolean> getDataLoaded() {
+        return dataLoaded;
+    }
+
+    /**
+     * Creates and shows the splash that is shown while the data entities are loaded in the background
+     * 
+     * @param progressBar The progress bar of the splash
+     * 
+     * @return The splash
+     */
+    private static JWindow createSplash(JProgressBar progressBar) {
+        JWindow splash = new JWindow();
+        progressBar.setStringPainted(true);
+        splash.add(progressBar);
+        splash.setSize(320, 24);
+        splash.setLocationRelativeTo(null);
+        splash.setVisible(true);
+        return splash;
+    }
+
     /**
      * This method gets called when the game is being restarted
      */
@@ -0,0 +1,162 @@
+package framework.core.system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import framework.communication.external.builder.AbstractBuilder;
+import framework.communication.external.builder.BinaryDataBuilder;
+import framework.communication.external.builder.DataBuilder;
+import framework.core.factories.AbstractFactory;
+import framework.core.factories.DataFactory;
+import framework.core.system.EngineProperties.Property;
+import framework.utils.io.Paths;
+import framework.utils.logging.Tracelog;
+
+/**
+ * Loads the data of the engine in the background.  Every page of the sheet is decoded by its own worker
+ * while the data is being read, and the data is populated once everything has been read.
+ *
+ * Note: The data must not be used until the future of the preload completes
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ */
+public final class DataPreloader {
+
+    /**
+     * The number of workers that load the data
+     */
+    private static final int WORKERS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The future that completes once the data is loaded
+     */
+    private final CompletableFuture<Boolean> _future = new CompletableFuture<>();
+
+    /**
+     * The number of steps of the preload that are completed
+     */
+    private final AtomicInteger _completed = new AtomicInteger();
+
+    /**
+     * The number of steps of the preload
+     */
+    private volatile int _total;
+
+    /**
+     * The listener that is notified every time that a step of the preload is completed
+     */
+    private final ProgressListener _progressListener;
+
+    /**
+     * A listener of the progress of a preload
+     *
+     * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Called every time that a step of the preload is completed
+         *
+         * Note: This is called from the workers of the preload, not from the event dispatch thread
+         *
+         * @param completed The number of steps that are completed
+         * @param total The total number of steps
+         */
+        void progressChanged(int completed, int total);
+    }
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param progressListener The listener that is notified every time that a step of the preload is completed, or null
+     */
+    public DataPreloader(ProgressListener progressListener) {
+        _progressListener = progressListener;
+    }
+
+    /**
+     * Gets the future that completes once the data is loaded
+     *
+     * @return The future that completes with TRUE if the data was loaded, FALSE otherwise
+     */
+    public CompletableFuture<Boolean> getFuture() {
+        return _future;
+    }
+
+    /**
+     * Starts loading the data in the background
+     *
+     * @return The future that completes with TRUE if the data was loaded, FALSE otherwise
+     */
+    public CompletableFuture<Boolean> start() {
+        long startTime = System.nanoTime();
+
+        // The factory is created by this thread, the workers only ever populate it
+        DataFactory factory = AbstractFactory.getFactory(DataFactory.class);
+
+        String packedPath = EngineProperties.instance().getProperty(Property.DATA_PATH_PACKED);
+        AbstractBuilder<?> builder = packedPath != null
+            ? new BinaryDataBuilder(packedPath)
+            : new DataBuilder(EngineProperties.instance().getProperty(Property.DATA_PATH_XML));
+
+        // Every page of the sheet that exists is decoded by its own worker
+        List<Integer> pages = new ArrayList<>();
+        String sheetPath = EngineProperties.instance().getProperty(Property.DATA_PATH_SHEET);
+        for(int page = 0; sheetPath != null && getClass().getResource(Paths.getPagePath(sheetPath, page)) != null; ++page) {
+            pages.add(page);
+        }
+
+        // Every page is a step, along with reading and populating the data
+        _total = pages.size() + 2;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(WORKERS, _total), runnable -> {
+            Thread thread = new Thread(runnable, "DataPreloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<CompletableFuture<Void>> sheets = new ArrayList<>();
+        for(int page : pages) {
+            sheets.add(CompletableFuture.runAsync(() -> factory.preloadSheet(page), executor).thenRun(this::step));
+        }
+
+        CompletableFuture<Boolean> read = CompletableFuture.supplyAsync(builder::buildStart, executor).whenComplete((result, exception) -> step());
+
+        // The data is populated once it has been read and every page has been decoded
+        read.thenCombine(CompletableFuture.allOf(sheets.toArray(new CompletableFuture<?>[sheets.size()])), (isRead, value) -> isRead)
+            .thenApplyAsync(isRead -> {
+                if(isRead) {
+                    builder.buildContent();
+                    builder.buildEnd();
+                }
+                step();
+                return isRead;
+            }, executor)
+            .whenComplete((isLoaded, exception) -> {
+                executor.shutdown();
+                if(exception != null) {
+                    Tracelog.log(Level.SEVERE, false, exception.toString());
+                }
+                Tracelog.log(Level.INFO, false, String.format("Preload Data Entities Finished - %dms, %d pages of the sheet decoded", (System.nanoTime() - startTime) / 1000000, pages.size()));
+                _future.complete(exception == null && isLoaded);
+            });
+
+        return _future;
+    }
+
+    /**
+     * Completes a step of the preload
+     */
+    private void step() {
+        int completed = _completed.incrementAndGet();
+        if(_progressListener != null) {
+            _progressListener.progressChanged(completed, _total);
+        }
+    }
+}
\ No newline at end of file
@@ -44,6 +44,26 @@ public final class EngineProperties {
          */
         DATA_PATH_SHEET,
 
+        /**
+         * The path where the lookup index is stored, this maps the names of the data to their identifiers
+         */
+        DATA_PATH_LOOKUP,
+
+        /**
+         * The path where the packed data is stored, when specified it is loaded instead of the .xml
+         */
+        DATA_PATH_PACKED,
+
+        /**
+         * If the data should be loaded in the background so that the application is shown before the data is loaded
+         */
+        DATA_PRELOAD,
+
+        /**
+         * If a splash showing the progress of loading the data should be shown while the data is loaded in the background
+         */
+        DATA_PRELOAD_SPLASH,
+
         /**
          * The path where the logging will be directed
          */
@@ -136,6 +156,6 @@ public final class EngineProperties {
      * @return TRUE if the engine properties holds property values for the data paths, FALSE otherwise
      */
     public boolean hasDataValues() {
-        return _engineProperties.containsKey(Property.DATA_PATH_SHEET) || _engineProperties.containsKey(Property.DATA_PATH_XML);
+        return _engineProperties.containsKey(Property.DATA_PATH_SHEET) || _engineProperties.containsKey(Property.DATA_PATH_XML) || _engineProperties.containsKey(Property.DATA_PATH_PACKED);
     }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package framework.utils.io;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Reads primitive values that have been written using a {@link BinaryWriter}
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ */
+public final class BinaryReader implements AutoCloseable {
+
+    /**
+     * The underlying data stream
+     */
+    private final DataInputStream _stream;
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param stream The stream to read from
+     */
+    public BinaryReader(InputStream stream) {
+        _stream = new DataInputStream(stream);
+    }
+
+    /**
+     * Reads exactly the specified number of bytes
+     *
+     * @param length The number of bytes to read
+     *
+     * @return The bytes that were read
+     *
+     * @throws IOException If the stream could not be read from
+     */
+    public byte[] readRaw(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        _stream.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a single unsigned byte
+     *
+     * @return The byte value
+     *
+     * @throws IOException If the stream could not be read from
+     */
+    public int readByte() throws IOException {
+        return _stream.readUnsignedByte();
+    }
+
+    /**
+     * Reads a fixed size 64-bit integer
+     *
+     * @return The value
+     *
+     * @throws IOException If the stream could not be read from
+     */
+    public long readLong() throws IOException {
+        return _stream.readLong();
+    }
+
+    /**
+     * Reads an unsigned variable length integer
+     *
+     * @return The value
+     *
+     * @throws IOException If the stream could not be read from or the value is malformed
+     */
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7) {
+            int current = _stream.readUnsignedByte();
+            value |= (current & 0x7F) << shift;
+            if((current & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed variable length integer");
+    }
+
+    /**
+     * Reads a signed variable length integer
+     *
+     * @return The value
+     *
+     * @throws IOException If the stream could not be read from or the value is malformed
+     */
+    public int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a 128-bit unique identifier
+     *
+     * @return The unique identifier
+     *
+     * @throws IOException If the stream could not be read from
+     */
+    public UUID readUUID() throws IOException {
+        return new UUID(_stream.readLong(), _stream.readLong());
+    }
+
+    /**
+     * Reads bytes that have been prefixed by their length
+     *
+     * @return The bytes that were read
+     *
+     * @throws IOException If the stream could not be read from
+     */
+    public byte[] readBytes() throws IOException {
+        return readRaw(readVarInt());
+    }
+
+    /**
+     * Skips over bytes that have been prefixed by their length, the bytes are never read into memory
+     *
+     * @throws IOException If the stream could not be read from or ends before the bytes
+     */
+    public void skipBytes() throws IOException {
+        int remaining = readVarInt();
+        if(remaining < 0) {
+            throw new IOException("Malformed length " + remaining);
+        }
+
+        while(remaining > 0) {
+            int skipped = _stream.skipBytes(remaining);
+            if(skipped == 0) {
+                // Nothing could be skipped, reading a single byte tells apart a slow stream from the end of the stream
+                _stream.readUnsignedByte();
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Reads a UTF-8 string that has been prefixed by its length
+     *
+     * @return The string that was read
+     *
+     * @throws IOException If the stream could not be read from
+     */
+    public String readString() throws IOException {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Override public void close() throws IOException {
+        _stream.close();
+    }
+}
\ No newline at end of file
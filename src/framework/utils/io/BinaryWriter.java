@@ -0,0 +1,137 @@
+package framework.utils.io;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Writes primitive values into a stream using a compact binary representation.  Integers are written as
+ * variable length integers, so that small values only take up a single byte
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ */
+public final class BinaryWriter implements AutoCloseable {
+
+    /**
+     * The underlying data stream
+     */
+    private final DataOutputStream _stream;
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param stream The stream to write into
+     */
+    public BinaryWriter(OutputStream stream) {
+        _stream = new DataOutputStream(stream);
+    }
+
+    /**
+     * Writes the specified bytes as-is
+     *
+     * @param bytes The bytes to write
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public void writeRaw(byte[] bytes) throws IOException {
+        _stream.write(bytes);
+    }
+
+    /**
+     * Writes a single byte
+     *
+     * @param value The byte value
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public void writeByte(int value) throws IOException {
+        _stream.writeByte(value);
+    }
+
+    /**
+     * Writes a fixed size 64-bit integer
+     *
+     * @param value The value
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public void writeLong(long value) throws IOException {
+        _stream.writeLong(value);
+    }
+
+    /**
+     * Writes an unsigned variable length integer
+     *
+     * @param value The value, this value should not be negative
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public void writeVarInt(int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            _stream.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        _stream.writeByte(value);
+    }
+
+    /**
+     * Writes a signed variable length integer, small negative values are kept small using zig-zag encoding
+     *
+     * @param value The value
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public void writeSignedVarInt(int value) throws IOException {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes the specified unique identifier as a 128-bit value
+     *
+     * @param uuid The unique identifier
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public void writeUUID(UUID uuid) throws IOException {
+        _stream.writeLong(uuid.getMostSignificantBits());
+        _stream.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Writes the specified bytes prefixed by their length
+     *
+     * @param bytes The bytes to write
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public void writeBytes(byte[] bytes) throws IOException {
+        writeVarInt(bytes.length);
+        _stream.write(bytes);
+    }
+
+    /**
+     * Writes the specified string as UTF-8 prefixed by its length
+     *
+     * @param value The string to write
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public void writeString(String value) throws IOException {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Flushes the underlying stream
+     *
+     * @throws IOException If the stream could not be flushed
+     */
+    public void flush() throws IOException {
+        _stream.flush();
+    }
+
+    @Override public void close() throws IOException {
+        _stream.close();
+    }
+}
\ No newline at end of file
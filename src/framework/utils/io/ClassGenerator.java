@@ -84,33 +84,52 @@ public final class ClassGenerator {
     }
     
     /**
-     * Writes the contents of this generated class to the specified file
+     * Generates the source of this class
      * 
-     * @param file The file to write into
+     * @return The source of the generated class
      */
-    public void write(File file) {
-        try(FileWriter writer = new FileWriter(file))  {
+    public String generate() {
+
+        // Clear the contents of the class builder before proceeding
+        _classBuilder.setLength(0);
+
+        // Package name;
+        _classBuilder.append(String.format("package %s;", _packageName));
+        appendNewLine(_classBuilder);
 
-            // Clear the contents of the class builder before proceeding
-            _classBuilder.setLength(0);
+        // public class name {
+        _classBuilder.append(String.format("public class %s {", _className));
+        appendNewLine(_classBuilder);
 
-            // Package name;
-            _classBuilder.append(String.format("package %s;", _packageName));
-            appendNewLine(_classBuilder);
+        // All the enum declarations and its values are included
+        _classBuilder.append(_enumBuilder.toString());
+        appendNewLine(_classBuilder);
 
-            // public class name {
-            _classBuilder.append(String.format("public class %s {", _className));
-            appendNewLine(_classBuilder);
+        // The ending curly brace for the class declaration
+        _classBuilder.append("}");
 
-            // All the enum declarations and its values are included
-            _classBuilder.append(_enumBuilder.toString());
-            appendNewLine(_classBuilder);
+        return _classBuilder.toString();
+    }
+
+    /**
+     * Gets the fully qualified name of the generated class
+     * 
+     * @return The name of the class, including its package
+     */
+    public String getQualifiedName() {
+        return _packageName + "." + _className;
+    }
 
-            // The ending curly brace for the class declaration
-            _classBuilder.append("}");
+    /**
+     * Writes the contents of this generated class to the specified file
+     * 
+     * @param file The file to write into
+     */
+    public void write(File file) {
+        try(FileWriter writer = new FileWriter(file))  {
 
-            // Write the contents of the builder to the file specified
-            writer.write(_classBuilder.toString());
+            // Write the contents of the generated class to the file specified
+            writer.write(generate());
         }
         catch(Exception exception) {
             exception.printStackTrace();
@@ -1,25 +1,65 @@
 package framework.utils.io;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.jar.Attributes;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
 
 /**
  * Represents a single instance of a JAR package
  *
  * Note: Make sure you call {@code close() } on this class object when you
  *       are finished adding entries
- *       
+ *
+ * Note: Entries are held in memory until the package is closed, they are then compressed in parallel
+ *       and written sorted by their name with a fixed timestamp.  Packaging the same entries always
+ *       produces the same bytes, so a package that is unchanged is not written again
+ *
  * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
  */
 public class JarPackage {
 
+    /**
+     * The time of every entry in the MS-DOS format, this is midnight of January 1st 1980
+     */
+    private static final int DOS_TIME = 0;
+
+    /**
+     * The date of every entry in the MS-DOS format, this is midnight of January 1st 1980
+     */
+    private static final int DOS_DATE = (1 << 5) | 1;
+
+    /**
+     * The version of the zip format needed to extract an entry
+     */
+    private static final int VERSION = 20;
+
+    /**
+     * Indicates that the name of an entry is encoded in UTF-8
+     */
+    private static final int FLAG_UTF8 = 1 << 11;
+
+    /**
+     * The maximum number of entries that a package can hold without the zip64 extensions
+     */
+    private static final int MAXIMUM_ENTRIES = 0xFFFF;
+
     /**
      * The manifest of this jar package
      */
@@ -28,55 +68,150 @@ public class JarPackage {
     }};
 
     /**
-     * The output stream referencing the jar file
+     * The destination path of the .jar file
+     */
+    private final File _file;
+
+    /**
+     * The entries of this jar package, by their name
+     */
+    private final Map<String, Entry> _entries = new TreeMap<>();
+
+    /**
+     * Indicates if the .jar file was left as is because it already held the same bytes
+     */
+    private boolean _isUnchanged;
+
+    /**
+     * An entry of the jar package
      */
-    private JarOutputStream _jarOutputStream = null;
+    private static final class Entry {
+
+        /**
+         * The encoded name of this entry
+         */
+        private final byte[] _name;
+
+        /**
+         * The uncompressed data of this entry
+         */
+        private final byte[] _data;
+
+        /**
+         * The data of this entry as it is written, this is the compressed data unless compressing did not make it smaller
+         */
+        private byte[] _storedData;
+
+        /**
+         * The compression method of this entry
+         */
+        private int _method;
+
+        /**
+         * The checksum of the uncompressed data of this entry
+         */
+        private int _crc;
+
+        /**
+         * The offset of the local header of this entry within the .jar file
+         */
+        private int _offset;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param name The name of this entry
+         * @param data The uncompressed data of this entry
+         */
+        private Entry(String name, byte[] data) {
+            _name = name.getBytes(StandardCharsets.UTF_8);
+            _data = data;
+        }
+
+        /**
+         * Compresses the data of this entry
+         */
+        private void deflate() {
+            CRC32 crc = new CRC32();
+            crc.update(_data);
+            _crc = (int) crc.getValue();
+
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(_data);
+                deflater.finish();
+
+                ByteArrayOutputStream stream = new ByteArrayOutputStream(Math.max(64, _data.length / 2));
+                byte[] buffer = new byte[64 * 1024];
+                while(!deflater.finished()) {
+                    stream.write(buffer, 0, deflater.deflate(buffer));
+                }
+
+                if(stream.size() < _data.length) {
+                    _storedData = stream.toByteArray();
+                    _method = Deflater.DEFLATED;
+                }
+                else {
+                    _storedData = _data;
+                    _method = 0;
+                }
+            }
+            finally {
+                deflater.end();
+            }
+        }
+    }
 
     /**
      * Constructs a new instance of this class type
-     * 
+     *
      * @param path The destination path for where the .jar file should be
      */
     public JarPackage(String path) {
-        try {
-            _jarOutputStream = new JarOutputStream(new FileOutputStream(path), _manifest);
-        } catch (Exception exception) {
-            exception.printStackTrace();
-        }
+        _file = new File(path);
+    }
+
+    /**
+     * Sets an attribute of the main section of the manifest of this jar package
+     *
+     * @param name The name of the attribute
+     * @param value The value of the attribute
+     */
+    public void setAttribute(String name, String value) {
+        _manifest.getMainAttributes().put(new Attributes.Name(name), value);
     }
 
     /**
      * Adds the provided data into the jar file at the location within the jar file specified
-     * 
+     *
      * @param data The data that will be written into the jar file.
      * @param location The location within the jar where the written data will reside
      */
     public void addEntry(File data, String location) {
 
-        // Create the stream for writing to the jar file and reading the contents of the file specified
-        try(BufferedInputStream in = new BufferedInputStream(new FileInputStream(data))) {
-
-            // Create a jar entry, make sure that the paths are properly formatted
-            JarEntry entry = new JarEntry(location.replace("\\", "/") + data.getName());
-
-            // Set the last modified entry
-            entry.setTime(data.lastModified());
+        // Read the whole file at once through its channel
+        try(FileChannel channel = FileChannel.open(data.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while(buffer.hasRemaining() && channel.read(buffer) != -1);
 
-            // Apply the entry into the stream
-            _jarOutputStream.putNextEntry(entry);
-
-            // read the contents of the button and write to the target stream
-            byte[] buffer = new byte[1024];
-            while (true) {
-                int count = in.read(buffer);
-                if (count == -1) {
-                    break;
-                }
-                _jarOutputStream.write(buffer, 0, count);
-            }
+            // Make sure that the paths are properly formatted
+            addEntryImpl(location.replace("\\", "/") + data.getName(), buffer.array());
+        }
+        catch(Exception exception) {
+            exception.printStackTrace();
+        }
+    }
 
-            // Close the jar entry object
-            _jarOutputStream.closeEntry();
+    /**
+     * Adds the provided data into the jar file at the location within the jar file specified
+     *
+     * @param data The data that will be written into the jar file
+     * @param name The path and name of the entry within the jar where the written data will reside
+     */
+    public void addEntry(byte[] data, String name) {
+        try {
+            // Make sure that the paths are properly formatted
+            addEntryImpl(name.replace("\\", "/"), data);
         }
         catch(Exception exception) {
             exception.printStackTrace();
@@ -84,13 +219,132 @@ public class JarPackage {
     }
 
     /**
-     * Closes the underlying stream
+     * Adds an entry with the specified name and data
+     *
+     * @param name The name of the entry
+     * @param data The data of the entry
+     *
+     * @throws ZipException If there is already an entry with the specified name
+     */
+    private void addEntryImpl(String name, byte[] data) throws ZipException {
+        if(name.equalsIgnoreCase(JarFile.MANIFEST_NAME) || _entries.containsKey(name)) {
+            throw new ZipException("duplicate entry: " + name);
+        }
+        _entries.put(name, new Entry(name, data));
+    }
+
+    /**
+     * Indicates if closing this package left the .jar file as is because it already held the same bytes
+     *
+     * @return TRUE if the .jar file was unchanged, FALSE otherwise
+     */
+    public boolean isUnchanged() {
+        return _isUnchanged;
+    }
+
+    /**
+     * Closes this package, the .jar file is written unless it already holds the same bytes
      */
     public void close() {
         try {
-            _jarOutputStream.close();
-        } catch (IOException exception) {
+            byte[] bytes = toByteArray();
+
+            // The output is reproducible, so a file with the same bytes is the same package
+            _isUnchanged = _file.isFile() && _file.length() == bytes.length && Arrays.equals(Files.readAllBytes(_file.toPath()), bytes);
+            if(!_isUnchanged) {
+                try(FileChannel channel = FileChannel.open(_file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    while(buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            }
+        }
+        catch (IOException exception) {
             exception.printStackTrace();
         }
     }
+
+    /**
+     * Compresses the entries of this package in parallel, and then writes them one after the other
+     *
+     * @return The bytes of the .jar file
+     *
+     * @throws IOException If the package could not be written
+     */
+    private byte[] toByteArray() throws IOException {
+
+        // The manifest is always the first entry, this is where it is expected to be found
+        ByteArrayOutputStream manifest = new ByteArrayOutputStream();
+        _manifest.write(manifest);
+
+        List<Entry> entries = new ArrayList<>();
+        entries.add(new Entry(JarFile.MANIFEST_NAME, manifest.toByteArray()));
+        entries.addAll(_entries.values());
+        if(entries.size() > MAXIMUM_ENTRIES) {
+            throw new ZipException("Cannot write more than " + MAXIMUM_ENTRIES + " entries");
+        }
+
+        entries.parallelStream().forEach(Entry::deflate);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(entries.stream().mapToInt(z -> z._storedData.length + z._name.length * 2 + 76).sum() + 22);
+        for(Entry entry : entries) {
+            entry._offset = stream.size();
+            writeHeader(stream, entry, false);
+            stream.write(entry._storedData);
+        }
+
+        int directoryOffset = stream.size();
+        for(Entry entry : entries) {
+            writeHeader(stream, entry, true);
+        }
+
+        // The end of the central directory record
+        ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+        end.putInt(0x06054B50);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) entries.size());
+        end.putShort((short) entries.size());
+        end.putInt(stream.size() - directoryOffset);
+        end.putInt(directoryOffset);
+        end.putShort((short) 0);
+        stream.write(end.array());
+
+        return stream.toByteArray();
+    }
+
+    /**
+     * Writes the header of the specified entry
+     *
+     * @param stream The stream to write into
+     * @param entry The entry
+     * @param isCentral TRUE to write the header of the central directory, FALSE to write the local header
+     */
+    private static void writeHeader(ByteArrayOutputStream stream, Entry entry, boolean isCentral) {
+        ByteBuffer header = ByteBuffer.allocate((isCentral ? 46 : 30) + entry._name.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(isCentral ? 0x02014B50 : 0x04034B50);
+        if(isCentral) {
+            header.putShort((short) VERSION);
+        }
+        header.putShort((short) VERSION);
+        header.putShort((short) FLAG_UTF8);
+        header.putShort((short) entry._method);
+        header.putShort((short) DOS_TIME);
+        header.putShort((short) DOS_DATE);
+        header.putInt(entry._crc);
+        header.putInt(entry._storedData.length);
+        header.putInt(entry._data.length);
+        header.putShort((short) entry._name.length);
+        header.putShort((short) 0);
+        if(isCentral) {
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putInt(0);
+            header.putInt(entry._offset);
+        }
+        header.put(entry._name);
+        stream.write(header.array(), 0, header.capacity());
+    }
 }
\ No newline at end of file
@@ -1,19 +1,34 @@
 package framework.utils.io;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 import java.util.logging.Level;
 
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.SimpleJavaFileObject;
 import javax.tools.StandardJavaFileManager;
@@ -30,6 +45,75 @@ import framework.utils.logging.Tracelog;
  */
 public class Javac extends SimpleJavaFileObject {
 
+    /**
+     * The name of the manifest attribute of a .jar file holding the hash of the source that its classes were compiled from
+     */
+    public static final String SOURCE_HASH = "Source-Hash";
+
+    /**
+     * The maximum number of compilations that are cached
+     */
+    private static final int MAXIMUM_CACHED = 16;
+
+    /**
+     * The classes that were compiled from memory, by the hash of the source that they were compiled from
+     */
+    private static final Map<String, Map<String, byte[]>> _cache = new LinkedHashMap<String, Map<String, byte[]>>(MAXIMUM_CACHED, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Entry<String, Map<String, byte[]>> eldest) {
+            return size() > MAXIMUM_CACHED;
+        }
+    };
+
+    /**
+     * A source file that is held in memory
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        /**
+         * The source of the file
+         */
+        private final String _source;
+
+        /**
+         * Constructs a new instance of this class type
+         * 
+         * @param className The fully qualified name of the class within the source
+         * @param source The source
+         */
+        private SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            _source = source;
+        }
+
+        @Override public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return _source;
+        }
+    }
+
+    /**
+     * A compiled class file that is held in memory
+     */
+    private static final class ClassFile extends SimpleJavaFileObject {
+
+        /**
+         * The bytes of the compiled class
+         */
+        private final ByteArrayOutputStream _stream = new ByteArrayOutputStream();
+
+        /**
+         * Constructs a new instance of this class type
+         * 
+         * @param className The binary name of the compiled class
+         */
+        private ClassFile(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override public OutputStream openOutputStream() {
+            return _stream;
+        }
+    }
+
     /**
      * Constructs a new instance of this class type
      * 
@@ -39,6 +123,15 @@ public class Javac extends SimpleJavaFileObject {
         super(uri, Kind.SOURCE);
     }
 
+    /**
+     * Indicates if a compiler is available, a compiler is only available when running on a JDK
+     *
+     * @return TRUE if sources can be compiled, FALSE otherwise
+     */
+    public static boolean isAvailable() {
+        return ToolProvider.getSystemJavaCompiler() != null;
+    }
+
     /**
      * Compiles a source file specified through a uri, this means that the file should exist
      * on disk somewhere
@@ -80,16 +173,7 @@ public class Javac extends SimpleJavaFileObject {
         boolean success = task.call();
 
         // Go through the diagnostics if something bad happened
-        for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
-            System.out.println("Error: Could not properly compile the specified resource");
-            System.out.println("Error: Code = " + diagnostic.getCode());
-            System.out.println("Error: Kind = " + diagnostic.getKind());
-            System.out.println("Error: Position = " + diagnostic.getPosition());
-            System.out.println("Error: Start Position = " + diagnostic.getStartPosition());
-            System.out.println("Error: End Position = " + diagnostic.getEndPosition());
-            System.out.println("Error: Source = " + diagnostic.getSource());
-            System.out.println("Error: Message = " + diagnostic.getMessage(null));
-        }
+        logDiagnostics(diagnostics);
 
         // Output information about the compilation outcome
         System.out.println("Info: " + uri.toString() + (success ? " successfully compiled" : "failed compilation!!!"));
@@ -115,6 +199,199 @@ public class Javac extends SimpleJavaFileObject {
         return classFiles;	
     }
 
+    /**
+     * Compiles the specified source entirely in memory, nothing is read from or written to disk.  The result is
+     * cached by the hash of the source, compiling a source that was already compiled returns the cached result
+     * 
+     * @param className The fully qualified name of the class within the source
+     * @param source The source to compile
+     * 
+     * @return The bytes of every compiled class by the binary name of the class, this includes nested classes
+     * 
+     * @throws IOException If the source could not be compiled
+     */
+    public static Map<String, byte[]> compile(String className, String source) throws IOException {
+
+        String hash = getSourceHash(className, source);
+        synchronized(_cache) {
+            Map<String, byte[]> classes = _cache.get(hash);
+            if(classes != null) {
+                Tracelog.log(Level.INFO, false, className + " is unchanged, the previous compilation is used");
+                return classes;
+            }
+        }
+
+        // Get a reference to the system compiler
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null) {
+            throw new IOException("Cannot find any Java Compiler...");
+        }
+
+        // Create a new diagnostic collector
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+
+        // Every class file that the compiler outputs is kept in memory
+        Map<String, ClassFile> classFiles = new LinkedHashMap<>();
+        try(JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(compiler.getStandardFileManager(diagnostics, null, null)) {
+            @Override public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                ClassFile classFile = new ClassFile(name);
+                classFiles.put(name, classFile);
+                return classFile;
+            }
+        }) {
+            // Create a task using the compiler resource and perform the compilation operation
+            CompilationTask task = compiler.getTask(null, fileManager, diagnostics, null, null, Collections.singleton(new SourceFile(className, source)));
+            boolean success = task.call();
+
+            logDiagnostics(diagnostics);
+            if(!success) {
+                throw new IOException(className + " failed compilation");
+            }
+        }
+
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for(Entry<String, ClassFile> classFile : classFiles.entrySet()) {
+            classes.put(classFile.getKey(), classFile.getValue()._stream.toByteArray());
+        }
+        classes = Collections.unmodifiableMap(classes);
+
+        synchronized(_cache) {
+            _cache.put(hash, classes);
+        }
+
+        Tracelog.log(Level.INFO, false, className + " successfully compiled into " + classes.size() + " classes");
+        return classes;
+    }
+
+    /**
+     * Compiles the specified source entirely in memory, unless the specified .jar file was written with the classes
+     * of the same source, in which case the classes are read back from the .jar file.  This makes the result of a
+     * compilation last across sessions, for as long as the .jar file is kept
+     *
+     * Note: The .jar file must have the hash of the source within its manifest, see {@link #SOURCE_HASH}
+     *
+     * @param className The fully qualified name of the class within the source
+     * @param source The source to compile
+     * @param jar The .jar file that was written with the classes of a previous compilation
+     *
+     * @return The bytes of every compiled class by the binary name of the class, this includes nested classes
+     *
+     * @throws IOException If the source could not be compiled
+     */
+    public static Map<String, byte[]> compile(String className, String source, File jar) throws IOException {
+
+        String hash = getSourceHash(className, source);
+        Map<String, byte[]> classes = readClasses(jar, className, hash);
+        if(classes == null) {
+            return compile(className, source);
+        }
+
+        synchronized(_cache) {
+            _cache.put(hash, classes);
+        }
+
+        Tracelog.log(Level.INFO, false, className + " is unchanged, the classes within " + jar + " are used");
+        return classes;
+    }
+
+    /**
+     * Reads the classes of the specified class name from the specified .jar file, if the classes were compiled
+     * from the source with the specified hash
+     *
+     * @param jar The .jar file
+     * @param className The fully qualified name of the class
+     * @param hash The hash of the source
+     *
+     * @return The bytes of every class by the binary name of the class, or null if the .jar file does not hold
+     *         the classes of the source
+     */
+    private static Map<String, byte[]> readClasses(File jar, String className, String hash) {
+        if(!jar.isFile()) {
+            return null;
+        }
+
+        try(JarFile jarFile = new JarFile(jar)) {
+            Manifest manifest = jarFile.getManifest();
+            if(manifest == null || !hash.equals(manifest.getMainAttributes().getValue(SOURCE_HASH))) {
+                return null;
+            }
+
+            // The class itself and every class nested within it
+            String path = className.replace('.', '/');
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            for(Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if(name.endsWith(Kind.CLASS.extension) && (name.equals(path + Kind.CLASS.extension) || name.startsWith(path + "$"))) {
+                    try(InputStream stream = jarFile.getInputStream(entry)) {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        byte[] buffer = new byte[8192];
+                        for(int read; (read = stream.read(buffer)) != -1;) {
+                            bytes.write(buffer, 0, read);
+                        }
+                        classes.put(name.substring(0, name.length() - Kind.CLASS.extension.length()).replace('/', '.'), bytes.toByteArray());
+                    }
+                }
+            }
+
+            return classes.containsKey(className) ? Collections.unmodifiableMap(classes) : null;
+        }
+        catch(IOException exception) {
+            Tracelog.log(Level.WARNING, false, "Cannot read the classes within " + jar + ", " + exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Outputs the specified diagnostics
+     * 
+     * @param diagnostics The diagnostics of a compilation
+     */
+    private static void logDiagnostics(DiagnosticCollector<JavaFileObject> diagnostics) {
+        for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
+            System.out.println("Error: Could not properly compile the specified resource");
+            System.out.println("Error: Code = " + diagnostic.getCode());
+            System.out.println("Error: Kind = " + diagnostic.getKind());
+            System.out.println("Error: Position = " + diagnostic.getPosition());
+            System.out.println("Error: Start Position = " + diagnostic.getStartPosition());
+            System.out.println("Error: End Position = " + diagnostic.getEndPosition());
+            System.out.println("Error: Source = " + diagnostic.getSource());
+            System.out.println("Error: Message = " + diagnostic.getMessage(null));
+        }
+    }
+
+    /**
+     * Gets the hash of the specified source, this identifies the classes that are compiled from the source
+     *
+     * @param className The fully qualified name of the class within the source
+     * @param source The source
+     *
+     * @return The hexadecimal representation of the hash
+     */
+    public static String getSourceHash(String className, String source) {
+        return hash(className + "\n" + source);
+    }
+
+    /**
+     * Hashes the specified source
+     * 
+     * @param source The source
+     * 
+     * @return The hexadecimal representation of the hash
+     */
+    private static String hash(String source) {
+        try {
+            StringBuilder builder = new StringBuilder();
+            for(byte value : MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8))) {
+                builder.append(String.format("%02x", value));
+            }
+            return builder.toString();
+        }
+        catch(Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
     @Override public CharSequence getCharContent(boolean ignoreEncodingErrors) {
 
         String source = null;
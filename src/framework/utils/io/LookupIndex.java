@@ -0,0 +1,330 @@
+package framework.utils.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.logging.Level;
+
+import framework.core.system.EngineProperties;
+import framework.core.system.EngineProperties.Property;
+import framework.utils.logging.Tracelog;
+
+/**
+ * An index that maps names to identifiers, used to look up data without relying on generated classes.  Names
+ * are organized into groups, and are matched the same way as the constants of the generated lookup enums
+ *
+ * Note: The index uses a minimal perfect hash, every name is found with at most two hashes and a single
+ *       comparison.  Names are hashed into small buckets, and every bucket remembers the seed that moves all
+ *       of its names into slots that no other name uses
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ */
+public final class LookupIndex {
+
+    /**
+     * File extension representation for all lookup index files
+     */
+    public static final String EXTENSION_LOOKUP = ".lookup";
+
+    /**
+     * The header that every lookup index starts with
+     */
+    private static final byte[] MAGIC = "MLUT".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The version of the lookup index format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The average number of names within a bucket
+     */
+    private static final int BUCKET_SIZE = 4;
+
+    /**
+     * The maximum seed that is tried for a bucket before giving up
+     */
+    private static final int MAXIMUM_SEED = 1 << 24;
+
+    /**
+     * The singleton instance of this class type
+     */
+    private static LookupIndex _instance;
+
+    /**
+     * The seed of every bucket
+     */
+    private final int[] _seeds;
+
+    /**
+     * The name held within every slot
+     */
+    private final String[] _keys;
+
+    /**
+     * The identifier held within every slot
+     */
+    private final UUID[] _values;
+
+    /**
+     * Constructs a new instance of this class type
+     *
+     * @param seeds The seed of every bucket
+     * @param keys The name held within every slot
+     * @param values The identifier held within every slot
+     */
+    private LookupIndex(int[] seeds, String[] keys, UUID[] values) {
+        _seeds = seeds;
+        _keys = keys;
+        _values = values;
+    }
+
+    /**
+     * Gets the lookup index of the current session, the index is read from the path specified by
+     * the {@link Property#DATA_PATH_LOOKUP} engine property the first time that it is needed
+     *
+     * @return The lookup index, this is empty if the index could not be read
+     */
+    public static synchronized LookupIndex instance() {
+        if(_instance == null) {
+            String path = EngineProperties.instance().getProperty(Property.DATA_PATH_LOOKUP);
+            try(InputStream stream = path == null ? null : LookupIndex.class.getResourceAsStream(path)) {
+                if(stream == null) {
+                    throw new IOException("Cannot find the lookup index " + path);
+                }
+                _instance = read(stream);
+            }
+            catch(Exception exception) {
+                Tracelog.log(Level.SEVERE, false, exception);
+                _instance = new LookupIndex(new int[0], new String[0], new UUID[0]);
+            }
+        }
+
+        return _instance;
+    }
+
+    /**
+     * Builds a lookup index from the specified groups of names
+     *
+     * @param groups The identifier of every name, by the group of the names
+     *
+     * @return The lookup index
+     */
+    public static LookupIndex build(Map<String, Map<String, UUID>> groups) {
+
+        // Names that only differ by their case are the same name, only the first one is kept
+        Map<String, UUID> entries = new LinkedHashMap<>();
+        for(Entry<String, Map<String, UUID>> group : groups.entrySet()) {
+            for(Entry<String, UUID> entry : group.getValue().entrySet()) {
+                if(entries.putIfAbsent(getKey(group.getKey(), entry.getKey()), entry.getValue()) != null) {
+                    Tracelog.log(Level.WARNING, false, "Cannot add " + entry.getKey() + " to the lookup index because " + group.getKey() + " already has that name");
+                }
+            }
+        }
+
+        List<String> keys = new ArrayList<>(entries.keySet());
+        int size = keys.size();
+        int[] seeds = new int[size == 0 ? 0 : (size + BUCKET_SIZE - 1) / BUCKET_SIZE];
+
+        // Put every name into its bucket
+        List<List<String>> buckets = new ArrayList<>();
+        for(int i = 0; i < seeds.length; ++i) {
+            buckets.add(new ArrayList<>());
+        }
+        for(String key : keys) {
+            buckets.get(getSlot(0, key, seeds.length)).add(key);
+        }
+
+        // The largest buckets are the hardest to place, so they are placed first while most slots are free
+        List<Integer> order = new ArrayList<>();
+        for(int i = 0; i < seeds.length; ++i) {
+            order.add(i);
+        }
+        order.sort((first, second) -> buckets.get(second).size() - buckets.get(first).size());
+
+        String[] slotKeys = new String[size];
+        UUID[] slotValues = new UUID[size];
+        int[] slots = new int[BUCKET_SIZE * 4];
+        for(int bucket : order) {
+            List<String> bucketKeys = buckets.get(bucket);
+            if(bucketKeys.isEmpty()) {
+                continue;
+            }
+            if(slots.length < bucketKeys.size()) {
+                slots = new int[bucketKeys.size()];
+            }
+
+            // Find the seed that moves every name of the bucket into a different free slot
+            int seed = 1;
+            while(!isPlaceable(seed, bucketKeys, slotKeys, slots)) {
+                if(++seed > MAXIMUM_SEED) {
+                    throw new IllegalStateException("Cannot build the lookup index, no seed could be found for a bucket");
+                }
+            }
+
+            seeds[bucket] = seed;
+            for(int i = 0; i < bucketKeys.size(); ++i) {
+                slotKeys[slots[i]] = bucketKeys.get(i);
+                slotValues[slots[i]] = entries.get(bucketKeys.get(i));
+            }
+        }
+
+        return new LookupIndex(seeds, slotKeys, slotValues);
+    }
+
+    /**
+     * Indicates if the specified names can all be placed into free slots using the specified seed
+     *
+     * @param seed The seed
+     * @param keys The names
+     * @param slotKeys The name held within every slot, a free slot holds null
+     * @param slots The slot of every name, this is populated when the names can be placed
+     *
+     * @return TRUE if every name can be placed, FALSE otherwise
+     */
+    private static boolean isPlaceable(int seed, List<String> keys, String[] slotKeys, int[] slots) {
+        for(int i = 0; i < keys.size(); ++i) {
+            slots[i] = getSlot(seed, keys.get(i), slotKeys.length);
+            if(slotKeys[slots[i]] != null) {
+                return false;
+            }
+            for(int j = 0; j < i; ++j) {
+                if(slots[j] == slots[i]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the identifier of the specified name
+     *
+     * @param group The group of the name, for example the name of a layer
+     * @param name The name
+     *
+     * @return The identifier of the name, or null if the name is not within the specified group
+     */
+    public UUID get(String group, String name) {
+        if(_keys.length == 0) {
+            return null;
+        }
+
+        String key = getKey(group, name);
+        int slot = getSlot(_seeds[getSlot(0, key, _seeds.length)], key, _keys.length);
+        return key.equals(_keys[slot]) ? _values[slot] : null;
+    }
+
+    /**
+     * Gets the number of names within this index
+     *
+     * @return The number of names
+     */
+    public int size() {
+        return _keys.length;
+    }
+
+    /**
+     * Writes this index into the specified stream
+     *
+     * @param stream The stream to write into
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public void write(OutputStream stream) throws IOException {
+        BinaryWriter writer = new BinaryWriter(stream);
+        writer.writeRaw(MAGIC);
+        writer.writeVarInt(VERSION);
+        writer.writeVarInt(_keys.length);
+        writer.writeVarInt(_seeds.length);
+        for(int seed : _seeds) {
+            writer.writeVarInt(seed);
+        }
+        for(int i = 0; i < _keys.length; ++i) {
+            writer.writeString(_keys[i]);
+            writer.writeUUID(_values[i]);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads an index from the specified stream
+     *
+     * @param stream The stream to read from
+     *
+     * @return The lookup index
+     *
+     * @throws IOException If the stream could not be read from, or is not a lookup index
+     */
+    public static LookupIndex read(InputStream stream) throws IOException {
+        BinaryReader reader = new BinaryReader(stream);
+        if(!Arrays.equals(reader.readRaw(MAGIC.length), MAGIC)) {
+            throw new IOException("The stream is not a lookup index");
+        }
+
+        int version = reader.readVarInt();
+        if(version > VERSION) {
+            throw new IOException("The lookup index version " + version + " is not supported");
+        }
+
+        String[] keys = new String[reader.readVarInt()];
+        UUID[] values = new UUID[keys.length];
+        int[] seeds = new int[reader.readVarInt()];
+        for(int i = 0; i < seeds.length; ++i) {
+            seeds[i] = reader.readVarInt();
+        }
+        for(int i = 0; i < keys.length; ++i) {
+            keys[i] = reader.readString();
+            values[i] = reader.readUUID();
+        }
+
+        return new LookupIndex(seeds, keys, values);
+    }
+
+    /**
+     * Gets the key of the specified name, names are matched the same way as the constants of the generated
+     * lookup enums
+     *
+     * @param group The group of the name
+     * @param name The name
+     *
+     * @return The key of the name
+     */
+    private static String getKey(String group, String name) {
+        return (group + "." + name).toUpperCase();
+    }
+
+    /**
+     * Gets the slot of the specified key
+     *
+     * @param seed The seed of the hash
+     * @param key The key
+     * @param slots The number of slots
+     *
+     * @return The slot of the key
+     */
+    private static int getSlot(int seed, String key, int slots) {
+
+        // FNV-1a, followed by a finalizer so that every bit of the seed affects every bit of the hash
+        int hash = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+        for(int i = 0; i < key.length(); ++i) {
+            hash = (hash ^ key.charAt(i)) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+
+        return (hash & Integer.MAX_VALUE) % slots;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,322 @@
+package framework.utils.io;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import framework.api.IData;
+
+/**
+ * A packed binary representation of data, the data is read without any parsing so that it can be loaded
+ * far quicker than its .xml representation
+ *
+ * Note: Every field of the data is stored as its own array, the identifiers are stored as their most and least
+ *       significant bits, and the layers of every data are stored as indices into a table holding every layer once
+ *
+ * @author Daniel Ricci {@literal <thedanny09@icloud.com>}
+ */
+public final class PackedData {
+
+    /**
+     * File extension representation for all packed data files
+     */
+    public static final String EXTENSION_DATA = ".mdat";
+
+    /**
+     * The header that every packed data file starts with
+     */
+    private static final byte[] MAGIC = "MDAT".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The version of the packed data format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Constructs a new instance of this class type
+     */
+    private PackedData() {
+    }
+
+    /**
+     * A data that was read from its packed representation
+     */
+    private static final class Record implements IData {
+
+        /**
+         * The identifier of this data
+         */
+        private final UUID _identifier;
+
+        /**
+         * The layers of this data
+         */
+        private final List<UUID> _layers;
+
+        /**
+         * The top-left coordinate of this data
+         */
+        private final Point _topLeft;
+
+        /**
+         * The bottom-right coordinate of this data
+         */
+        private final Point _bottomRight;
+
+        /**
+         * The page of the sheet holding this data
+         */
+        private final int _page;
+
+        /**
+         * Constructs a new instance of this class type
+         *
+         * @param identifier The identifier of this data
+         * @param layers The layers of this data
+         * @param topLeft The top-left coordinate of this data
+         * @param bottomRight The bottom-right coordinate of this data
+         * @param page The page of the sheet holding this data
+         */
+        private Record(UUID identifier, List<UUID> layers, Point topLeft, Point bottomRight, int page) {
+            _identifier = identifier;
+            _layers = layers;
+            _topLeft = topLeft;
+            _bottomRight = bottomRight;
+            _page = page;
+        }
+
+        @Override public UUID getIdentifier() {
+            return _identifier;
+        }
+
+        @Override public List<UUID> getLayers() {
+            return _layers;
+        }
+
+        @Override public Point getTopLeft() {
+            return new Point(_topLeft);
+        }
+
+        @Override public Point getBottomRight() {
+            return new Point(_bottomRight);
+        }
+
+        @Override public int getPage() {
+            return _page;
+        }
+    }
+
+    /**
+     * Writes the specified data into the specified stream
+     *
+     * @param data The data to write
+     * @param stream The stream to write into
+     *
+     * @throws IOException If the stream could not be written to
+     */
+    public static void write(Collection<? extends IData> data, OutputStream stream) throws IOException {
+
+        // Every layer is held once within the table, the data refers to the layers by their index
+        Map<UUID, Integer> layerIndices = new HashMap<>();
+        List<UUID> layers = new ArrayList<>();
+        int layerReferences = 0;
+        for(IData value : data) {
+            for(UUID layer : value.getLayers()) {
+                if(layerIndices.putIfAbsent(layer, layers.size()) == null) {
+                    layers.add(layer);
+                }
+            }
+            layerReferences += value.getLayers().size();
+        }
+
+        int count = data.size();
+        ByteBuffer buffer = ByteBuffer.allocate(
+            MAGIC.length
+            + Integer.BYTES * 4
+            + Long.BYTES * 2 * (layers.size() + count)
+            + Integer.BYTES * (6 * count + 1 + layerReferences)
+        ).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(count);
+        buffer.putInt(layers.size());
+        buffer.putInt(layerReferences);
+
+        for(UUID layer : layers) {
+            buffer.putLong(layer.getMostSignificantBits());
+        }
+        for(UUID layer : layers) {
+            buffer.putLong(layer.getLeastSignificantBits());
+        }
+        for(IData value : data) {
+            buffer.putLong(value.getIdentifier().getMostSignificantBits());
+        }
+        for(IData value : data) {
+            buffer.putLong(value.getIdentifier().getLeastSignificantBits());
+        }
+        for(IData value : data) {
+            buffer.putInt(value.getTopLeft().x);
+        }
+        for(IData value : data) {
+            buffer.putInt(value.getTopLeft().y);
+        }
+        for(IData value : data) {
+            buffer.putInt(value.getBottomRight().x);
+        }
+        for(IData value : data) {
+            buffer.putInt(value.getBottomRight().y);
+        }
+        for(IData value : data) {
+            buffer.putInt(value.getPage());
+        }
+
+        // The layers of the data at an index start at the offset of that index, and end at the offset of the next index
+        int offset = 0;
+        for(IData value : data) {
+            buffer.putInt(offset);
+            offset += value.getLayers().size();
+        }
+        buffer.putInt(offset);
+        for(IData value : data) {
+            for(UUID layer : value.getLayers()) {
+                buffer.putInt(layerIndices.get(layer));
+            }
+        }
+
+        stream.write(buffer.array());
+        stream.flush();
+    }
+
+    /**
+     * Reads the data held within the specified buffer, the buffer is read from its current position
+     *
+     * @param buffer The buffer, this can be a buffer that is mapped to a file
+     *
+     * @return The data that was read
+     *
+     * @throws IOException If the buffer does not hold packed data
+     */
+    public static List<IData> read(ByteBuffer buffer) throws IOException {
+        buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        if(buffer.remaining() < MAGIC.length + 4 * Integer.BYTES) {
+            throw new IOException("The buffer does not hold packed data");
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if(!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("The buffer does not hold packed data");
+        }
+
+        int version = buffer.getInt();
+        if(version > VERSION) {
+            throw new IOException("The packed data version " + version + " is not supported");
+        }
+
+        int count = buffer.getInt();
+        int layerCount = buffer.getInt();
+        int layerReferences = buffer.getInt();
+
+        // The counts are verified against what the buffer holds before anything is allocated
+        if(count < 0 || layerCount < 0 || layerReferences < 0) {
+            throw new IOException("The packed data is corrupt, its counts are negative");
+        }
+        long size = (2L * layerCount + 2L * count) * Long.BYTES + (5L * count + count + 1 + layerReferences) * Integer.BYTES;
+        if(size > buffer.remaining()) {
+            throw new IOException("The packed data is corrupt, it holds " + buffer.remaining() + " bytes instead of " + size);
+        }
+
+        // Every array is read at once
+        long[] layerMostBits = readLongs(buffer, layerCount);
+        long[] layerLeastBits = readLongs(buffer, layerCount);
+        long[] mostBits = readLongs(buffer, count);
+        long[] leastBits = readLongs(buffer, count);
+        int[] x1 = readInts(buffer, count);
+        int[] y1 = readInts(buffer, count);
+        int[] x2 = readInts(buffer, count);
+        int[] y2 = readInts(buffer, count);
+        int[] pages = readInts(buffer, count);
+        int[] offsets = readInts(buffer, count + 1);
+        int[] references = readInts(buffer, layerReferences);
+
+        // The offsets must increase and stay within the references, and every reference must be a layer
+        if(offsets[0] != 0 || offsets[count] != layerReferences) {
+            throw new IOException("The packed data is corrupt, its layer offsets do not match its layer references");
+        }
+        for(int i = 0; i < count; ++i) {
+            if(offsets[i + 1] < offsets[i]) {
+                throw new IOException("The packed data is corrupt, its layer offsets are not increasing");
+            }
+        }
+        for(int reference : references) {
+            if(reference < 0 || reference >= layerCount) {
+                throw new IOException("The packed data is corrupt, it references layer " + reference + " of " + layerCount);
+            }
+        }
+
+        UUID[] layers = new UUID[layerCount];
+        for(int i = 0; i < layerCount; ++i) {
+            layers[i] = new UUID(layerMostBits[i], layerLeastBits[i]);
+        }
+
+        List<IData> data = new ArrayList<>(count);
+        for(int i = 0; i < count; ++i) {
+            UUID[] dataLayers = new UUID[offsets[i + 1] - offsets[i]];
+            for(int j = 0; j < dataLayers.length; ++j) {
+                dataLayers[j] = layers[references[offsets[i] + j]];
+            }
+            data.add(new Record(
+                new UUID(mostBits[i], leastBits[i]),
+                Collections.unmodifiableList(Arrays.asList(dataLayers)),
+                new Point(x1[i], y1[i]),
+                new Point(x2[i], y2[i]),
+                pages[i]
+            ));
+        }
+
+        return data;
+    }
+
+    /**
+     * Reads the specified number of longs from the specified buffer
+     *
+     * @param buffer The buffer
+     * @param count The number of longs
+     *
+     * @return The longs
+     */
+    private static long[] readLongs(ByteBuffer buffer, int count) {
+        long[] values = new long[count];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + count * Long.BYTES);
+        return values;
+    }
+
+    /**
+     * Reads the specified number of ints from the specified buffer
+     *
+     * @param buffer The buffer
+     * @param count The number of ints
+     *
+     * @return The ints
+     */
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+}
\ No newline at end of file
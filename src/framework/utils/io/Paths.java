@@ -44,6 +44,29 @@ public final class Paths {
         return file.getName().substring(0, index == -1 ? file.getName().length() : index);
     }
 
+    /**
+     * Gets the path of the specified page of a paged file, the first page uses the path as-is and every
+     * other page has its page number appended to its name, for example sheet.png, sheet_1.png, sheet_2.png
+     * 
+     * @param path The path of the first page
+     * @param page The page
+     * 
+     * @return The path of the page
+     */
+    public static String getPagePath(String path, int page) {
+        if(page == 0) {
+            return path;
+        }
+
+        // Only a dot within the name of the file marks the start of the extension
+        int index = path.lastIndexOf('.');
+        if(index <= Math.max(path.lastIndexOf('/'), path.lastIndexOf(File.separatorChar))) {
+            index = path.length();
+        }
+
+        return path.substring(0, index) + "_" + page + path.substring(index);
+    }
+
     /**
      * Converts the class package name to the logical path on disk
      * 